@@ -0,0 +1,22 @@
+package ru.vspochernin.gigalearn.benchmark;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Каждый прогон бенчмарков начинается с пустой схемы: база очищается и миграции применяются заново.
+ */
+@Configuration
+@Profile("bench")
+public class BenchSchemaConfig {
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,239 @@
+package ru.vspochernin.gigalearn.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.vspochernin.gigalearn.GigalearnApplication;
+import ru.vspochernin.gigalearn.dto.AnswerOptionCreateDto;
+import ru.vspochernin.gigalearn.dto.AssignmentCreateDto;
+import ru.vspochernin.gigalearn.dto.CourseImportDto;
+import ru.vspochernin.gigalearn.dto.LessonImportDto;
+import ru.vspochernin.gigalearn.dto.ModuleImportDto;
+import ru.vspochernin.gigalearn.dto.QuestionImportDto;
+import ru.vspochernin.gigalearn.dto.QuizImportDto;
+import ru.vspochernin.gigalearn.entity.Category;
+import ru.vspochernin.gigalearn.entity.Role;
+import ru.vspochernin.gigalearn.entity.User;
+import ru.vspochernin.gigalearn.repository.CategoryRepository;
+import ru.vspochernin.gigalearn.repository.QuestionRepository;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+import ru.vspochernin.gigalearn.repository.projection.AnswerKeyRow;
+import ru.vspochernin.gigalearn.service.CourseImportService;
+import ru.vspochernin.gigalearn.service.CourseService;
+import ru.vspochernin.gigalearn.service.EnrollmentService;
+import ru.vspochernin.gigalearn.service.QuizService;
+import ru.vspochernin.gigalearn.service.SubmissionService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Поднимает контекст приложения на локальном PostgreSQL (профиль bench) и генерирует данные.
+ * Масштаб задается параметрами JMH, например {@code -p courses=50 -p students=20000}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkState {
+
+    @Param("10")
+    public int courses;
+
+    @Param("10")
+    public int modulesPerCourse;
+
+    @Param("5")
+    public int lessonsPerModule;
+
+    @Param("20")
+    public int questionsPerQuiz;
+
+    @Param("4")
+    public int optionsPerQuestion;
+
+    @Param("5000")
+    public int students;
+
+    ConfigurableApplicationContext context;
+    QuizService quizService;
+    EnrollmentService enrollmentService;
+    SubmissionService submissionService;
+    CourseService courseService;
+
+    long[] courseIds;
+    long[] studentIds;
+    long[] assignmentIds;
+    long quizId;
+    Map<Long, List<Long>> correctAnswers;
+
+    private JdbcTemplate jdbcTemplate;
+    // Счетчики атомарные, чтобы состояние можно было делить между потоками (-t N)
+    private final AtomicLong enrollmentCursor = new AtomicLong();
+    private final AtomicLong submissionCursor = new AtomicLong();
+    private final AtomicLong quizCursor = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        start(WebApplicationType.NONE);
+    }
+
+    // Вне JMH (QuizLoadComparison) контекст поднимается с веб-сервером и дополнительными свойствами
+    void start(WebApplicationType webApplicationType, String... properties) {
+        context = new SpringApplicationBuilder(GigalearnApplication.class)
+                .profiles("bench")
+                .web(webApplicationType)
+                .properties(properties)
+                .run();
+
+        quizService = context.getBean(QuizService.class);
+        enrollmentService = context.getBean(EnrollmentService.class);
+        submissionService = context.getBean(SubmissionService.class);
+        courseService = context.getBean(CourseService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        generateData();
+    }
+
+    // Записи и сдачи уникальны по паре (студент, курс/задание), поэтому между итерациями их очищаем
+    @Setup(Level.Iteration)
+    public void resetWrites() {
+        jdbcTemplate.update("delete from enrollment");
+        jdbcTemplate.update("delete from submission");
+        jdbcTemplate.update("delete from quiz_submission");
+        enrollmentCursor.set(0);
+        submissionCursor.set(0);
+        quizCursor.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Каждый вызов дает новую пару (студент, курс); при исчерпании пар итерация падает с понятным сообщением
+    long[] nextEnrollment() {
+        long index = enrollmentCursor.getAndIncrement();
+        if (index >= (long) students * courseIds.length) {
+            throw new IllegalStateException("Enrollment pairs exhausted, increase -p students or -p courses");
+        }
+        return new long[]{studentIds[(int) (index % students)], courseIds[(int) (index / students)]};
+    }
+
+    long[] nextSubmission() {
+        long index = submissionCursor.getAndIncrement();
+        if (index >= (long) students * assignmentIds.length) {
+            throw new IllegalStateException("Submission pairs exhausted, increase -p students or -p lessonsPerModule");
+        }
+        return new long[]{studentIds[(int) (index % students)], assignmentIds[(int) (index / students)]};
+    }
+
+    long nextQuizStudent() {
+        return studentIds[(int) (quizCursor.getAndIncrement() % students)];
+    }
+
+    private void generateData() {
+        Category category = context.getBean(CategoryRepository.class).save(Category.builder().name("Benchmark").build());
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@bench.local").role(Role.TEACHER).build()
+        );
+
+        studentIds = userRepository.saveAll(IntStream.range(0, students)
+                        .mapToObj(i -> User.builder()
+                                .name("Student " + i)
+                                .email("student" + i + "@bench.local")
+                                .role(Role.STUDENT)
+                                .build())
+                        .toList())
+                .stream()
+                .mapToLong(User::getId)
+                .toArray();
+
+        // Деревья курсов строим через импорт: он вставляет их пакетами одной транзакцией на курс
+        CourseImportService importService = context.getBean(CourseImportService.class);
+        courseIds = new long[courses];
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = importService.importCourse(course(c, category.getId(), teacher.getId())).getCourseId();
+        }
+
+        assignmentIds = jdbcTemplate.queryForList("""
+                        select a.id from assignment a
+                        join lesson l on l.id = a.lesson_id
+                        join module m on m.id = l.module_id
+                        where m.course_id = ?
+                        order by a.id
+                        """, Long.class, courseIds[0])
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+
+        quizId = jdbcTemplate.queryForObject("""
+                select q.id from quiz q
+                join module m on m.id = q.module_id
+                where m.course_id = ?
+                order by m.order_index
+                limit 1
+                """, Long.class, courseIds[0]);
+
+        correctAnswers = new HashMap<>();
+        for (AnswerKeyRow row : context.getBean(QuestionRepository.class).findAnswerKeyByQuizId(quizId)) {
+            List<Long> selected = correctAnswers.computeIfAbsent(row.getQuestionId(), id -> new ArrayList<>());
+            if (Boolean.TRUE.equals(row.getCorrect())) {
+                selected.add(row.getOptionId());
+            }
+        }
+    }
+
+    private CourseImportDto course(int index, long categoryId, long teacherId) {
+        List<ModuleImportDto> modules = new ArrayList<>();
+        for (int m = 1; m <= modulesPerCourse; m++) {
+            List<LessonImportDto> lessons = new ArrayList<>();
+            for (int l = 1; l <= lessonsPerModule; l++) {
+                lessons.add(LessonImportDto.builder()
+                        .title("Lesson " + m + "." + l)
+                        .content("Content of lesson " + m + "." + l)
+                        .assignments(List.of(AssignmentCreateDto.builder()
+                                .title("Assignment " + m + "." + l)
+                                .description("Description")
+                                .maxScore(100)
+                                .build()))
+                        .build());
+            }
+            modules.add(ModuleImportDto.builder()
+                    .title("Module " + m)
+                    .orderIndex(m)
+                    .lessons(lessons)
+                    .quiz(m == 1 ? quiz() : null)
+                    .build());
+        }
+
+        return CourseImportDto.builder()
+                .title("Benchmark course " + index)
+                .description("Generated course")
+                .categoryId(categoryId)
+                .teacherId(teacherId)
+                .modules(modules)
+                .build();
+    }
+
+    private QuizImportDto quiz() {
+        List<QuestionImportDto> questions = new ArrayList<>();
+        for (int q = 1; q <= questionsPerQuiz; q++) {
+            List<AnswerOptionCreateDto> options = new ArrayList<>();
+            for (int o = 1; o <= optionsPerQuestion; o++) {
+                options.add(AnswerOptionCreateDto.builder().text("Option " + o).isCorrect(o == 1).build());
+            }
+            questions.add(QuestionImportDto.builder().text("Question " + q).options(options).build());
+        }
+        return QuizImportDto.builder().title("Quiz").timeLimitSeconds(600).questions(questions).build();
+    }
+}
@@ -0,0 +1,169 @@
+package ru.vspochernin.gigalearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.gigalearn.GigalearnApplication;
+import ru.vspochernin.gigalearn.entity.AnswerOption;
+import ru.vspochernin.gigalearn.entity.Assignment;
+import ru.vspochernin.gigalearn.entity.Category;
+import ru.vspochernin.gigalearn.entity.Course;
+import ru.vspochernin.gigalearn.entity.Lesson;
+import ru.vspochernin.gigalearn.entity.Question;
+import ru.vspochernin.gigalearn.entity.Quiz;
+import ru.vspochernin.gigalearn.entity.Role;
+import ru.vspochernin.gigalearn.entity.User;
+import ru.vspochernin.gigalearn.repository.CategoryRepository;
+import ru.vspochernin.gigalearn.repository.CourseRepository;
+import ru.vspochernin.gigalearn.repository.ModuleRepository;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Массовое создание содержимого курса: модули, уроки, задания, квизы, вопросы и варианты ответов
+ * сохраняются одной транзакцией через каскад от модулей.
+ * <p>
+ * Одна единица scale - дерево объема DevDataLoader (2 модуля, 4 урока, задание, квиз, 2 вопроса, 6 вариантов),
+ * scale=100 - в 100 раз больше. batchSize=1 отключает пакетирование и дает по обращению к БД на строку,
+ * как было с IDENTITY; batchSize=50 - настройка из application.yml.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    @Benchmark
+    public long createCourseContent(BulkInsertState state) {
+        return state.createContent();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BulkInsertState {
+
+        @Param({"1", "100"})
+        public int scale;
+
+        @Param({"1", "50"})
+        public int batchSize;
+
+        private ConfigurableApplicationContext context;
+        private TransactionTemplate transactionTemplate;
+        private ModuleRepository moduleRepository;
+        private CourseRepository courseRepository;
+        private JdbcTemplate jdbcTemplate;
+        private Long courseId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(GigalearnApplication.class)
+                    .profiles("bench")
+                    .web(WebApplicationType.NONE)
+                    .properties("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize)
+                    .run();
+
+            transactionTemplate = context.getBean(TransactionTemplate.class);
+            moduleRepository = context.getBean(ModuleRepository.class);
+            courseRepository = context.getBean(CourseRepository.class);
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            Category category = context.getBean(CategoryRepository.class).save(Category.builder().name("Benchmark").build());
+            User teacher = context.getBean(UserRepository.class).save(
+                    User.builder().name("Teacher").email("teacher@bench.local").role(Role.TEACHER).build()
+            );
+            courseId = courseRepository.save(
+                    Course.builder().title("Benchmark course").category(category).teacher(teacher).build()
+            ).getId();
+        }
+
+        // Содержимое курса накапливается между вызовами, поэтому каждая итерация начинает с пустого курса
+        @Setup(Level.Iteration)
+        public void resetContent() {
+            jdbcTemplate.update("delete from answer_option");
+            jdbcTemplate.update("delete from question");
+            jdbcTemplate.update("delete from quiz");
+            jdbcTemplate.update("delete from assignment");
+            jdbcTemplate.update("delete from lesson");
+            jdbcTemplate.update("delete from module");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        long createContent() {
+            return transactionTemplate.execute(status -> {
+                Course course = courseRepository.getReferenceById(courseId);
+                List<ru.vspochernin.gigalearn.entity.Module> modules = new ArrayList<>();
+                for (int i = 0; i < scale; i++) {
+                    modules.add(module(course, 2 * i + 1, true));
+                    modules.add(module(course, 2 * i + 2, false));
+                }
+                return (long) moduleRepository.saveAll(modules).size();
+            });
+        }
+
+        private ru.vspochernin.gigalearn.entity.Module module(Course course, int orderIndex, boolean withQuiz) {
+            ru.vspochernin.gigalearn.entity.Module module = ru.vspochernin.gigalearn.entity.Module.builder()
+                    .title("Module " + orderIndex)
+                    .description("Generated module")
+                    .orderIndex(orderIndex)
+                    .course(course)
+                    .build();
+
+            for (int l = 1; l <= 2; l++) {
+                Lesson lesson = Lesson.builder()
+                        .title("Lesson " + orderIndex + "." + l)
+                        .content("Content of lesson " + orderIndex + "." + l)
+                        .module(module)
+                        .build();
+                if (withQuiz && l == 2) {
+                    lesson.getAssignments().add(Assignment.builder()
+                            .title("Assignment " + orderIndex)
+                            .description("Description")
+                            .maxScore(100)
+                            .lesson(lesson)
+                            .build());
+                }
+                module.getLessons().add(lesson);
+            }
+
+            if (withQuiz) {
+                Quiz quiz = Quiz.builder().title("Quiz " + orderIndex).timeLimit(30).module(module).build();
+                for (int q = 1; q <= 2; q++) {
+                    Question question = Question.builder().text("Question " + q).type("SINGLE_CHOICE").quiz(quiz).build();
+                    for (int o = 1; o <= 3; o++) {
+                        question.getAnswerOptions().add(AnswerOption.builder()
+                                .text("Option " + o)
+                                .isCorrect(o == 1)
+                                .question(question)
+                                .build());
+                    }
+                    quiz.getQuestions().add(question);
+                }
+                module.setQuiz(quiz);
+            }
+            return module;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.vspochernin.gigalearn.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import ru.vspochernin.gigalearn.dto.TakeQuizDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочное сравнение режимов обработки запросов: потоки платформы (пул Tomcat) и виртуальные потоки.
+ * <p>
+ * Для каждого режима поднимается приложение (профиль bench, случайный порт), генерируются данные,
+ * и одновременно отправляются {@code requests} запросов {@code POST /api/quizzes/{id}/take}.
+ * Печатаются пропускная способность, p50/p99 и число ошибок.
+ * <p>
+ * Запуск: {@code ./mvnw -Pjmh test-compile exec:exec -Djmh.main=ru.vspochernin.gigalearn.benchmark.QuizLoadComparison
+ * -Djmh.args="requests=10000"}. Параметры: {@code requests}, {@code warmup}, {@code students}, {@code questions}.
+ */
+public final class QuizLoadComparison {
+
+    private QuizLoadComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int requests = Integer.parseInt(options.getOrDefault("requests", "10000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "1000"));
+        int students = Integer.parseInt(options.getOrDefault("students", "1000"));
+        int questions = Integer.parseInt(options.getOrDefault("questions", "20"));
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            results.add(run(virtualThreads, requests, warmup, students, questions));
+        }
+
+        System.out.printf("%n%d concurrent quiz submissions%n", requests);
+        results.forEach(result -> System.out.println(result.format()));
+    }
+
+    private static Result run(boolean virtualThreads, int requests, int warmup, int students, int questions)
+            throws Exception {
+        BenchmarkState state = new BenchmarkState();
+        state.courses = 1;
+        state.modulesPerCourse = 1;
+        state.lessonsPerModule = 1;
+        state.questionsPerQuiz = questions;
+        state.optionsPerQuestion = 4;
+        state.students = students;
+        state.start(WebApplicationType.SERVLET,
+                "server.port=0",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                // Лимиты соединений Tomcat одинаковы в обоих режимах: сравниваются только потоки обработки
+                "server.tomcat.max-connections=" + (requests + 1000),
+                "server.tomcat.accept-count=" + requests);
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(60))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            int port = ((WebServerApplicationContext) state.context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/quizzes/" + state.quizId + "/take");
+            ObjectMapper objectMapper = state.context.getBean(ObjectMapper.class);
+
+            String mode = virtualThreads ? "virtual" : "platform";
+            fire(mode, client, uri, objectMapper, state, warmup);
+            return fire(mode, client, uri, objectMapper, state, requests);
+        } finally {
+            state.tearDown();
+        }
+    }
+
+    // Все запросы стартуют одновременно по защелке; клиент сам работает на виртуальных потоках,
+    // чтобы 10k одновременных запросов не упирались в потоки генератора нагрузки
+    private static Result fire(String mode, HttpClient client, URI uri, ObjectMapper objectMapper,
+                               BenchmarkState state, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        long startedAt;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                String body = objectMapper.writeValueAsString(TakeQuizDto.builder()
+                        .studentId(state.nextQuizStudent())
+                        .answersByQuestion(state.correctAnswers)
+                        .build());
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(120))
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+
+                executor.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 201) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[index] = System.nanoTime() - begin;
+                    return null;
+                });
+            }
+            startedAt = System.nanoTime();
+            start.countDown();
+        }
+        long elapsed = System.nanoTime() - startedAt;
+
+        Arrays.sort(latencies);
+        return new Result(mode, requests, errors.get(), elapsed,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private record Result(String mode, int requests, int errors, long elapsedNanos,
+                          long p50Nanos, long p99Nanos, long maxNanos) {
+
+        String format() {
+            return String.format("%-8s throughput=%8.0f req/s  p50=%8.1f ms  p99=%8.1f ms  max=%8.1f ms  errors=%d",
+                    mode,
+                    requests / (elapsedNanos / 1e9),
+                    p50Nanos / 1e6,
+                    p99Nanos / 1e6,
+                    maxNanos / 1e6,
+                    errors);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.vspochernin.gigalearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки сервисного слоя против реального PostgreSQL.
+ * Запуск: {@code ./mvnw -Pjmh test-compile exec:exec}, результат пишется в target/jmh-result.json.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Benchmark
+    public void takeQuiz(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(state.quizService.takeQuiz(state.nextQuizStudent(), state.quizId, state.correctAnswers));
+    }
+
+    @Benchmark
+    public long enrollStudent(BenchmarkState state) {
+        long[] pair = state.nextEnrollment();
+        return state.enrollmentService.enrollStudent(pair[1], pair[0]);
+    }
+
+    @Benchmark
+    public long submit(BenchmarkState state) {
+        long[] pair = state.nextSubmission();
+        return state.submissionService.submit(pair[0], pair[1], "Benchmark solution");
+    }
+
+    @Benchmark
+    public void getCourseWithContent(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(state.courseService.getCourseWithContent(state.courseIds[0]));
+    }
+}
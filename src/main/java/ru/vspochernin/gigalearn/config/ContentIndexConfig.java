@@ -0,0 +1,50 @@
+package ru.vspochernin.gigalearn.config;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Встроенный индекс Lucene по содержимому курсов: каталог на локальном диске, один IndexWriter
+ * на приложение и near-real-time поиск через SearcherManager поверх этого writer-а.
+ */
+@Configuration
+public class ContentIndexConfig {
+
+    // Русская морфология; латиница разбирается как есть (стоп-слова и стемминг только для кириллицы)
+    @Bean
+    public Analyzer contentIndexAnalyzer() {
+        return new RussianAnalyzer();
+    }
+
+    // Файлы индекса отображаются в память: чтение идет из page cache ОС, а не из кучи JVM
+    @Bean(destroyMethod = "close")
+    public Directory contentIndexDirectory(@Value("${gigalearn.content-index.path}") String path) throws IOException {
+        return new MMapDirectory(Files.createDirectories(Path.of(path)));
+    }
+
+    // При остановке close() фиксирует незакоммиченные изменения
+    @Bean(destroyMethod = "close")
+    public IndexWriter contentIndexWriter(Directory contentIndexDirectory, Analyzer contentIndexAnalyzer)
+            throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(contentIndexAnalyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        return new IndexWriter(contentIndexDirectory, config);
+    }
+
+    @Bean(destroyMethod = "close")
+    public SearcherManager contentSearcherManager(IndexWriter contentIndexWriter) throws IOException {
+        return new SearcherManager(contentIndexWriter, null);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.vspochernin.gigalearn.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.gigalearn.service.ContentIndexService;
+import ru.vspochernin.gigalearn.service.ContentIndexService.DocumentType;
+
+/**
+ * Передает в ContentIndexService изменения курсов, модулей, уроков и заданий после коммита транзакции:
+ * откаченные изменения в индекс не попадают. Каскадное удаление через JPA тоже порождает события,
+ * поэтому удаление курса снимает из индекса и его модули, уроки и задания.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentIndexEventListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ContentIndexService contentIndexService;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return DocumentType.forEntity(persister.getMappedClass()).isPresent();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        enqueue(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        enqueue(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        enqueue(event.getPersister(), event.getId());
+    }
+
+    // Транзакция откатилась - индекс не трогаем
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void enqueue(EntityPersister persister, Object id) {
+        DocumentType.forEntity(persister.getMappedClass())
+                .ifPresent(type -> contentIndexService.enqueue(type, ((Number) id).longValue()));
+    }
+}
@@ -0,0 +1,274 @@
+package ru.vspochernin.gigalearn.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.vspochernin.gigalearn.config.IdempotencyStore.IdempotencyRecord;
+import ru.vspochernin.gigalearn.exception.GlobalExceptionHandler.ErrorResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Идемпотентные POST-запросы по заголовку {@code Idempotency-Key}: сдача квиза, попытки и задания.
+ * <p>
+ * Первый запрос с ключом выполняется как обычно, его ответ (кроме 5xx) сохраняется в {@link IdempotencyStore}
+ * на gigalearn.idempotency.ttl. Повтор с тем же ключом и тем же телом получает сохраненный ответ
+ * с заголовком {@code Idempotent-Replayed: true}, не доходя до контроллера: ни валидации, ни проверки
+ * квиза, ни новой строки в quiz_submission. Тот же ключ с другим запросом - 422,
+ * повтор, пока первый запрос еще выполняется, - 409. Тело для хеша буферизуется в памяти,
+ * поэтому оно ограничено gigalearn.idempotency.max-body-size, больше - 413.
+ * <p>
+ * Счетчик gigalearn.idempotency с тегом outcome: stored, replayed, in_progress, mismatch.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final String METRIC = "gigalearn.idempotency";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Только сдачи: их повторяют клиенты на нестабильной сети. Остальные POST (например, импорт курса)
+    // фильтр пропускает, не читая тело в память
+    private static final List<String> PATHS = List.of(
+            "/api/quizzes/*/take",
+            "/api/quizzes/*/attempts/*/submit",
+            "/api/assignments/*/submit"
+    );
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+    private final int maxBodySize;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${gigalearn.idempotency.ttl:PT24H}") Duration ttl,
+                             @Value("${gigalearn.idempotency.lock-timeout:PT1M}") Duration lockTimeout,
+                             @Value("${gigalearn.idempotency.max-body-size:64KB}") DataSize maxBodySize) {
+        if (ttl.isNegative() || ttl.isZero() || lockTimeout.isNegative() || lockTimeout.isZero()) {
+            throw new IllegalArgumentException(String.format(
+                    "Idempotency ttl and lock timeout must be positive: %s, %s", ttl, lockTimeout));
+        }
+        if (maxBodySize.toBytes() <= 0 || maxBodySize.toBytes() >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Idempotency max body size must be between 1B and 2GB: " + maxBodySize);
+        }
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+        this.maxBodySize = (int) maxBodySize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || PATHS.stream().noneMatch(path -> PATH_MATCHER.match(path, request.getRequestURI()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).strip();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        // Тело читаем целиком заранее: по нему считается хеш, а контроллер потом читает его копию.
+        // Content-Length может отсутствовать (chunked), поэтому читаем на байт больше лимита
+        byte[] body = request.getContentLengthLong() > maxBodySize
+                ? null
+                : request.getInputStream().readNBytes(maxBodySize + 1);
+        if (body == null || body.length > maxBodySize) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Request body with Idempotency-Key must not exceed " + maxBodySize + " bytes");
+            return;
+        }
+        byte[] requestHash = hash(request, body);
+
+        if (!store.reserve(key, requestHash, Instant.now().plus(lockTimeout))) {
+            Optional<IdempotencyRecord> existing = store.find(key);
+            if (existing.isEmpty()) {
+                // Запись успела истечь между reserve и find - клиент может просто повторить запрос
+                writeConflict(response);
+            } else if (!MessageDigest.isEqual(existing.get().requestHash(), requestHash)) {
+                count("mismatch");
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key was already used for a different request");
+            } else if (existing.get().inProgress()) {
+                writeConflict(response);
+            } else {
+                count("replayed");
+                replay(existing.get(), response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+            // 5xx не запоминаем: сбой мог быть временным, повтор должен выполниться заново
+            if (cachingResponse.getStatus() < 500) {
+                store.complete(key, new IdempotencyRecord(
+                        requestHash,
+                        cachingResponse.getStatus(),
+                        cachingResponse.getContentType(),
+                        cachingResponse.getContentAsByteArray()), Instant.now().plus(ttl));
+                completed = true;
+                count("stored");
+            }
+        } finally {
+            if (!completed) {
+                store.release(key);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.contentType() != null) {
+            response.setContentType(record.contentType());
+        }
+        byte[] body = record.body() == null ? new byte[0] : record.body();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void writeConflict(HttpServletResponse response) throws IOException {
+        count("in_progress");
+        writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        ErrorResponse error = ErrorResponse.builder()
+                .status(status.value())
+                .message(message)
+                .timestamp(OffsetDateTime.now())
+                .build();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter(METRIC, "outcome", outcome).increment();
+    }
+
+    // Хеш метода, пути и тела: один ключ нельзя переиспользовать для другого запроса
+    private static byte[] hash(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + ' ' + request.getRequestURI() + '\n').getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Запрос с уже прочитанным телом: отдает его копию из памяти.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Тело уже в памяти: данные доступны сразу и сразу же прочитаны до конца
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.vspochernin.gigalearn.config;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Хранилище ответов для {@link IdempotencyFilter}.
+ * <p>
+ * Жизненный цикл ключа: {@link #reserve} перед выполнением запроса, затем {@link #complete} с ответом
+ * или {@link #release}, если запрос упал и его можно повторить. Записи живут до expiresAt.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * @return непросроченная запись по ключу (в том числе еще выполняющаяся)
+     */
+    Optional<IdempotencyRecord> find(String key);
+
+    /**
+     * Атомарно занимает ключ под запрос с указанным хешем.
+     *
+     * @return false, если ключ уже занят непросроченной записью
+     */
+    boolean reserve(String key, byte[] requestHash, Instant expiresAt);
+
+    void complete(String key, IdempotencyRecord record, Instant expiresAt);
+
+    void release(String key);
+
+    /**
+     * @return сколько просроченных записей удалено
+     */
+    int evictExpired();
+
+    /**
+     * Запрос (хеш метода, пути и тела) и ответ на него; status == null - запрос еще выполняется.
+     */
+    record IdempotencyRecord(byte[] requestHash, Integer status, String contentType, byte[] body) {
+
+        public boolean inProgress() {
+            return status == null;
+        }
+    }
+}
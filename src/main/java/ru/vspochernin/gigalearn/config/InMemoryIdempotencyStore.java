@@ -0,0 +1,120 @@
+package ru.vspochernin.gigalearn.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранилище идемпотентных ответов в памяти процесса (по умолчанию): повтор запроса стоит одного
+ * поиска в хеш-таблице. Запись хранит только SHA-256 запроса и байты ответа.
+ * <p>
+ * Число записей ограничено gigalearn.idempotency.max-entries: ключи задает клиент, и без предела поток
+ * уникальных ключей растил бы кучу до истечения TTL. При переполнении вытесняется самый старый ключ -
+ * TTL у всех записей один, поэтому он же истек бы первым. Вытесненный ключ выполнится повторно как новый.
+ */
+@Component
+@ConditionalOnProperty(name = "gigalearn.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Порядок вставки: complete перезаписывает значение, но не двигает ключ
+    private final LinkedHashMap<String, Entry> entries;
+
+    public InMemoryIdempotencyStore(@Value("${gigalearn.idempotency.max-entries:100000}") int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Idempotency store max entries must be positive: " + maxEntries);
+        }
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null || entry.isExpired(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.record());
+    }
+
+    @Override
+    public boolean reserve(String key, byte[] requestHash, Instant expiresAt) {
+        Entry reserved = new Entry(new IdempotencyRecord(requestHash, null, null, null), expiresAt);
+        Instant now = Instant.now();
+        // Проверка и вставка под одной блокировкой: из параллельных повторов ключ займет только один
+        lock.lock();
+        try {
+            Entry current = entries.get(key);
+            if (current != null && !current.isExpired(now)) {
+                return false;
+            }
+            // Просроченный ключ удаляем, чтобы новая резервация встала в конец очереди вытеснения
+            entries.remove(key);
+            entries.put(key, reserved);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord record, Instant expiresAt) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry(record, expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        lock.lock();
+        try {
+            Entry current = entries.get(key);
+            if (current != null && current.record().inProgress()) {
+                entries.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${gigalearn.idempotency.eviction-interval:PT1M}")
+    public int evictExpired() {
+        Instant now = Instant.now();
+        lock.lock();
+        try {
+            int before = entries.size();
+            entries.values().removeIf(entry -> entry.isExpired(now));
+            return before - entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(IdempotencyRecord record, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+}
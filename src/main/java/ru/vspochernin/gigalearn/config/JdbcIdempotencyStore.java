@@ -0,0 +1,78 @@
+package ru.vspochernin.gigalearn.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Хранилище идемпотентных ответов в таблице idempotency_key (миграция V7): ключ виден всем
+ * экземплярам приложения и переживает перезапуск. Включается gigalearn.idempotency.store=jdbc.
+ * Каждый вызов - отдельный autocommit-запрос, фильтр работает вне транзакций сервисов.
+ */
+@Component
+@ConditionalOnProperty(name = "gigalearn.idempotency.store", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    // Просроченную запись с тем же ключом перезаписываем; занятый ключ оставляем как есть (0 строк)
+    private static final String RESERVE_SQL = """
+            INSERT INTO idempotency_key (key, request_hash, expires_at)
+            VALUES (?, ?, ?)
+            ON CONFLICT (key) DO UPDATE
+                SET request_hash = excluded.request_hash,
+                    status = NULL,
+                    content_type = NULL,
+                    body = NULL,
+                    expires_at = excluded.expires_at
+                WHERE idempotency_key.expires_at <= now()
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        return jdbcTemplate.query("""
+                        SELECT request_hash, status, content_type, body
+                        FROM idempotency_key
+                        WHERE key = ? AND expires_at > now()
+                        """,
+                (rs, rowNum) -> new IdempotencyRecord(
+                        rs.getBytes("request_hash"),
+                        rs.getObject("status", Integer.class),
+                        rs.getString("content_type"),
+                        rs.getBytes("body")),
+                key).stream().findFirst();
+    }
+
+    @Override
+    public boolean reserve(String key, byte[] requestHash, Instant expiresAt) {
+        return jdbcTemplate.update(RESERVE_SQL, key, requestHash, expiresAt.atOffset(ZoneOffset.UTC)) == 1;
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord record, Instant expiresAt) {
+        jdbcTemplate.update("""
+                        UPDATE idempotency_key
+                        SET status = ?, content_type = ?, body = ?, expires_at = ?
+                        WHERE key = ?
+                        """,
+                record.status(), record.contentType(), record.body(), expiresAt.atOffset(ZoneOffset.UTC), key);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE key = ? AND status IS NULL", key);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${gigalearn.idempotency.eviction-interval:PT1M}")
+    public int evictExpired() {
+        return jdbcTemplate.update("DELETE FROM idempotency_key WHERE expires_at <= now()");
+    }
+}
@@ -0,0 +1,288 @@
+package ru.vspochernin.gigalearn.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.gigalearn.service.PartitionMaintenanceService;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор большого синтетического набора данных для нагрузочного тестирования (профиль loadgen).
+ * Данные загружаются через COPY FROM STDIN (CopyManager драйвера PostgreSQL), минуя Hibernate.
+ * Популярность курсов распределена по закону Ципфа: и записи, и прохождения квизов
+ * сосредоточены на небольшом числе курсов.
+ */
+@Component
+@Profile("loadgen")
+@RequiredArgsConstructor
+@Slf4j
+public class LoadDataGenerator implements CommandLineRunner {
+
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+    private static final int CATEGORIES = 20;
+    private static final int SUBMISSION_WINDOW_SECONDS = 365 * 24 * 3600;
+
+    private static final List<String> TABLES = List.of(
+            "category", "app_user", "course", "module", "lesson", "quiz",
+            "question", "answer_option", "enrollment", "quiz_submission"
+    );
+
+    private final DataSource dataSource;
+    private final PartitionMaintenanceService partitionMaintenanceService;
+
+    @Value("${gigalearn.loadgen.courses:10000}")
+    private int courses;
+
+    @Value("${gigalearn.loadgen.users:1000000}")
+    private int users;
+
+    @Value("${gigalearn.loadgen.enrollments:20000000}")
+    private long enrollments;
+
+    @Value("${gigalearn.loadgen.quiz-submissions:50000000}")
+    private long quizSubmissions;
+
+    @Value("${gigalearn.loadgen.modules-per-course:5}")
+    private int modulesPerCourse;
+
+    @Value("${gigalearn.loadgen.lessons-per-module:4}")
+    private int lessonsPerModule;
+
+    @Value("${gigalearn.loadgen.questions-per-quiz:10}")
+    private int questionsPerQuiz;
+
+    @Value("${gigalearn.loadgen.options-per-question:4}")
+    private int optionsPerQuestion;
+
+    // Показатель степени в законе Ципфа: чем больше, тем сильнее перекос в пользу топовых курсов
+    @Value("${gigalearn.loadgen.popularity-exponent:1.1}")
+    private double popularityExponent;
+
+    @Value("${gigalearn.loadgen.seed:42}")
+    private long seed;
+
+    @Override
+    public void run(String... args) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+
+            if (hasData(connection)) {
+                log.info("База данных уже содержит курсы, пропускаем генерацию нагрузочных данных");
+                return;
+            }
+
+            int teachers = Math.max(1, courses / 10);
+            int students = users - teachers;
+            validateScale(students);
+
+            log.info("=== Генерация нагрузочных данных: {} курсов, {} пользователей, {} записей, {} прохождений квизов ===",
+                    courses, users, enrollments, quizSubmissions);
+            long started = System.nanoTime();
+
+            SplittableRandom random = new SplittableRandom(seed);
+            ZipfSampler coursePopularity = new ZipfSampler(courses, popularityExponent, random.split());
+
+            copy(connection, "category", "id, name", out -> {
+                for (int id = 1; id <= CATEGORIES; id++) {
+                    out.write(id + "\tCategory " + id + "\n");
+                }
+                return CATEGORIES;
+            });
+
+            // Первые teachers пользователей - преподаватели, остальные - студенты
+            copy(connection, "app_user", "id, name, email, role", out -> {
+                for (int id = 1; id <= users; id++) {
+                    String role = id <= teachers ? "TEACHER" : "STUDENT";
+                    out.write(id + "\tUser " + id + "\tuser" + id + "@load.local\t" + role + "\n");
+                }
+                return users;
+            });
+
+            copy(connection, "course", "id, title, description, duration, start_date, category_id, teacher_id", out -> {
+                LocalDate startDate = LocalDate.now().minusYears(1);
+                for (int id = 1; id <= courses; id++) {
+                    out.write(id + "\tCourse " + id + "\tGenerated course " + id + "\t8 weeks\t"
+                            + startDate.plusDays(id % 365) + "\t" + (id % CATEGORIES + 1) + "\t" + (id % teachers + 1) + "\n");
+                }
+                return courses;
+            });
+
+            copy(connection, "module", "id, title, description, order_index, course_id", out -> {
+                long id = 0;
+                for (int course = 1; course <= courses; course++) {
+                    for (int m = 1; m <= modulesPerCourse; m++) {
+                        out.write(++id + "\tModule " + m + "\t\\N\t" + m + "\t" + course + "\n");
+                    }
+                }
+                return id;
+            });
+
+            copy(connection, "lesson", "id, title, content, video_url, module_id", out -> {
+                long id = 0;
+                long modules = (long) courses * modulesPerCourse;
+                for (long module = 1; module <= modules; module++) {
+                    for (int l = 1; l <= lessonsPerModule; l++) {
+                        out.write(++id + "\tLesson " + l + "\tContent of lesson " + l + "\t\\N\t" + module + "\n");
+                    }
+                }
+                return id;
+            });
+
+            // Один квиз на курс, в первом модуле: id квиза совпадает с id курса
+            copy(connection, "quiz", "id, title, time_limit, module_id", out -> {
+                for (int course = 1; course <= courses; course++) {
+                    out.write(course + "\tQuiz " + course + "\t600\t" + firstModuleId(course) + "\n");
+                }
+                return courses;
+            });
+
+            copy(connection, "question", "id, text, type, quiz_id", out -> {
+                long id = 0;
+                for (int quiz = 1; quiz <= courses; quiz++) {
+                    for (int q = 1; q <= questionsPerQuiz; q++) {
+                        out.write(++id + "\tQuestion " + q + "\tSINGLE_CHOICE\t" + quiz + "\n");
+                    }
+                }
+                return id;
+            });
+
+            copy(connection, "answer_option", "id, text, is_correct, question_id", out -> {
+                long id = 0;
+                long questions = (long) courses * questionsPerQuiz;
+                for (long question = 1; question <= questions; question++) {
+                    for (int o = 1; o <= optionsPerQuestion; o++) {
+                        out.write(++id + "\tOption " + o + "\t" + (o == 1) + "\t" + question + "\n");
+                    }
+                }
+                return id;
+            });
+
+            // Записи: поровну на студента, курсы выбираются по популярности без повторов у одного студента
+            SplittableRandom enrollmentRandom = random.split();
+            copy(connection, "enrollment", "id, user_id, course_id, enroll_date, status", out -> {
+                long id = 0;
+                long perStudent = enrollments / students;
+                long remainder = enrollments % students;
+                int[] chosen = new int[(int) perStudent + 1];
+                LocalDate today = LocalDate.now();
+                for (int student = 0; student < students; student++) {
+                    int count = (int) (perStudent + (student < remainder ? 1 : 0));
+                    for (int i = 0; i < count; i++) {
+                        chosen[i] = distinctCourse(coursePopularity, enrollmentRandom, chosen, i);
+                        out.write(++id + "\t" + (teachers + 1 + student) + "\t" + chosen[i] + "\t"
+                                + today.minusDays(enrollmentRandom.nextInt(365)) + "\tActive\n");
+                    }
+                }
+                return id;
+            });
+
+            // Прохождения квизов тяготеют к популярным курсам; повторные попытки допустимы.
+            // Месячные партиции заводим заранее на весь интервал taken_at, иначе строки осядут в default-партиции
+            YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+            partitionMaintenanceService.createPartitions("quiz_submission", currentMonth.minusMonths(12), currentMonth);
+            SplittableRandom submissionRandom = random.split();
+            copy(connection, "quiz_submission", "id, quiz_id, student_id, score, taken_at", out -> {
+                OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+                for (long id = 1; id <= quizSubmissions; id++) {
+                    int quiz = coursePopularity.sample(submissionRandom);
+                    int student = teachers + 1 + submissionRandom.nextInt(students);
+                    out.write(id + "\t" + quiz + "\t" + student + "\t" + submissionRandom.nextInt(questionsPerQuiz + 1)
+                            + "\t" + now.minusSeconds(submissionRandom.nextInt(SUBMISSION_WINDOW_SECONDS)) + "\n");
+                }
+                return quizSubmissions;
+            });
+
+            finish(connection);
+            log.info("=== Генерация завершена за {} с ===", (System.nanoTime() - started) / 1_000_000_000);
+        }
+    }
+
+    private void validateScale(int students) {
+        if (students <= 0) {
+            throw new IllegalArgumentException("Not enough users for " + courses + " courses: " + users);
+        }
+        // Выборка без повторов по распределению Ципфа должна оставаться дешевой
+        if (enrollments / students + 1 > courses / 2) {
+            throw new IllegalArgumentException(String.format(
+                    "Too many enrollments per student: %d enrollments, %d students, %d courses",
+                    enrollments, students, courses));
+        }
+    }
+
+    private long firstModuleId(int course) {
+        return (long) (course - 1) * modulesPerCourse + 1;
+    }
+
+    private static int distinctCourse(ZipfSampler popularity, SplittableRandom random, int[] chosen, int count) {
+        while (true) {
+            int course = popularity.sample(random);
+            boolean duplicate = false;
+            for (int i = 0; i < count; i++) {
+                if (chosen[i] == course) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                return course;
+            }
+        }
+    }
+
+    private static boolean hasData(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select exists(select 1 from course)")) {
+            resultSet.next();
+            return resultSet.getBoolean(1);
+        }
+    }
+
+    private static void copy(Connection connection, String table, String columns, RowWriter rows)
+            throws SQLException, IOException {
+        long started = System.nanoTime();
+        String sql = "COPY " + table + " (" + columns + ") FROM STDIN";
+        long count;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, COPY_BUFFER_SIZE),
+                StandardCharsets.UTF_8), COPY_BUFFER_SIZE)) {
+            count = rows.write(out);
+        }
+        log.info("{}: {} строк за {} мс", table, count, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Сдвигаем sequence-ы за загруженные id (Hibernate выдает id блоками по allocationSize) и обновляем статистику
+    private static void finish(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                statement.execute("select setval('" + table + "_seq', (select coalesce(max(id), 1) from " + table + "))");
+            }
+            statement.execute("analyze");
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        long write(Writer out) throws IOException;
+    }
+}
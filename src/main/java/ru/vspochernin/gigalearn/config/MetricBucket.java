@@ -0,0 +1,15 @@
+package ru.vspochernin.gigalearn.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Помечает id-параметр сервисного метода, по которому латентность дополнительно
+ * разбивается на бакеты (метрика {@code gigalearn.service.bucketed}, см. {@link ServiceMetricsAspect}).
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MetricBucket {
+}
@@ -0,0 +1,12 @@
+package ru.vspochernin.gigalearn.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает @Scheduled-задачи (обслуживание партиций в PartitionMaintenanceService).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
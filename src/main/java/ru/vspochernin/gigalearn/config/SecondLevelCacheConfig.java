@@ -0,0 +1,37 @@
+package ru.vspochernin.gigalearn.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // Провайдер JCache по умолчанию отдает один CacheManager на URI конфигурации для всей JVM.
+    // Несколько контекстов приложения (например, тестовые контексты с разными БД) читали бы
+    // закешированные сущности друг друга, поэтому каждому контексту - свой менеджер
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${gigalearn.cache.config:classpath:ehcache.xml}") Resource config) throws IOException {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        XmlConfiguration configuration = new XmlConfiguration(config.getURL(), getClass().getClassLoader());
+        return provider.getCacheManager(URI.create("gigalearn:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.vspochernin.gigalearn.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймеры на все публичные методы {@code @Service}-классов.
+ * <p>
+ * {@code gigalearn.service} - латентность по классу, методу и типу исключения.
+ * {@code gigalearn.service.bucketed} - то же для методов с параметром {@link MetricBucket},
+ * дополнительно с тегом {@code bucket}: id квиза/курса сводится к одному из N бакетов,
+ * чтобы хвосты латентности были видны по группам, а число временных рядов оставалось ограниченным.
+ * Гистограммы для перцентилей включаются в application.yml.
+ * <p>
+ * Аспект выполняется снаружи {@code @Transactional}, поэтому время коммита тоже попадает в замер.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    static final String SERVICE_TIMER = "gigalearn.service";
+    static final String BUCKETED_TIMER = "gigalearn.service.bucketed";
+
+    private static final int NO_BUCKET = -1;
+
+    private final MeterRegistry meterRegistry;
+    private final int bucketCount;
+
+    // Индекс параметра с @MetricBucket для каждого метода, чтобы не разбирать аннотации на каждом вызове
+    private final Map<Method, Integer> bucketParameters = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry,
+                                @Value("${gigalearn.metrics.bucket-count:16}") int bucketCount) {
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive: " + bucketCount);
+        }
+        this.meterRegistry = meterRegistry;
+        this.bucketCount = bucketCount;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            String className = signature.getDeclaringType().getSimpleName();
+            String methodName = signature.getName();
+
+            long durationNanos = sample.stop(Timer.builder(SERVICE_TIMER)
+                    .description("Латентность публичных методов сервисного слоя")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+
+            int bucketParameter = bucketParameters.computeIfAbsent(signature.getMethod(),
+                    ServiceMetricsAspect::findBucketParameter);
+            if (bucketParameter != NO_BUCKET && joinPoint.getArgs()[bucketParameter] instanceof Number id) {
+                Timer.builder(BUCKETED_TIMER)
+                        .description("Латентность горячих методов сервисного слоя по бакетам id")
+                        .tag("class", className)
+                        .tag("method", methodName)
+                        .tag("bucket", String.valueOf(Math.floorMod(id.longValue(), bucketCount)))
+                        .tag("exception", exception)
+                        .register(meterRegistry)
+                        .record(durationNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static int findBucketParameter(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof MetricBucket) {
+                    return i;
+                }
+            }
+        }
+        return NO_BUCKET;
+    }
+}
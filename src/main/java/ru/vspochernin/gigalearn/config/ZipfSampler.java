@@ -0,0 +1,45 @@
+package ru.vspochernin.gigalearn.config;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Выборка номеров 1..n по закону Ципфа: вероятность ранга k пропорциональна 1 / k^exponent.
+ * Ранги случайно переставлены, чтобы популярные элементы не совпадали с наименьшими id.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulativeWeights;
+    private final int[] valueByRank;
+
+    ZipfSampler(int n, double exponent, SplittableRandom random) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Zipf sampler size must be positive: " + n);
+        }
+
+        cumulativeWeights = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulativeWeights[rank] = total;
+        }
+
+        valueByRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            valueByRank[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = valueByRank[i];
+            valueByRank[i] = valueByRank[j];
+            valueByRank[j] = tmp;
+        }
+    }
+
+    int sample(SplittableRandom random) {
+        double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, point);
+        int rank = index >= 0 ? index : -index - 1;
+        return valueByRank[Math.min(rank, valueByRank.length - 1)];
+    }
+}
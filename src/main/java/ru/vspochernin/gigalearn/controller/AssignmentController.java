@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import ru.vspochernin.gigalearn.dto.PageResponseDto;
 import ru.vspochernin.gigalearn.dto.SubmissionCreateDto;
 import ru.vspochernin.gigalearn.dto.SubmissionResponseDto;
 import ru.vspochernin.gigalearn.entity.Submission;
@@ -44,5 +45,12 @@ public class AssignmentController {
                 .feedback(submission.getFeedback())
                 .build();
     }
+
+    @GetMapping("/{id}/submissions")
+    public PageResponseDto<SubmissionResponseDto> getSubmissions(@PathVariable Long id,
+                                                                 @RequestParam(required = false) String pageToken,
+                                                                 @RequestParam(defaultValue = "50") int size) {
+        return submissionService.getPageByAssignment(id, pageToken, size);
+    }
 }
 
@@ -0,0 +1,23 @@
+package ru.vspochernin.gigalearn.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.vspochernin.gigalearn.dto.CacheRegionStatsDto;
+import ru.vspochernin.gigalearn.service.CacheStatisticsService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @GetMapping("/regions")
+    public List<CacheRegionStatsDto> getRegionStats() {
+        return cacheStatisticsService.getRegionStats();
+    }
+}
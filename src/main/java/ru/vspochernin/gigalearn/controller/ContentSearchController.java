@@ -0,0 +1,31 @@
+package ru.vspochernin.gigalearn.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import ru.vspochernin.gigalearn.dto.ContentReindexResultDto;
+import ru.vspochernin.gigalearn.dto.ContentSearchHitDto;
+import ru.vspochernin.gigalearn.service.ContentIndexService;
+import ru.vspochernin.gigalearn.service.ContentSearchService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/content")
+@RequiredArgsConstructor
+public class ContentSearchController {
+
+    private final ContentSearchService contentSearchService;
+    private final ContentIndexService contentIndexService;
+
+    @GetMapping("/search")
+    public List<ContentSearchHitDto> search(@RequestParam(required = false) String q,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        return contentSearchService.search(q, limit);
+    }
+
+    // Полная переиндексация: после загрузки данных в обход Hibernate или потери каталога индекса
+    @PostMapping("/reindex")
+    public ContentReindexResultDto reindex() {
+        return contentIndexService.reindexAll();
+    }
+}
@@ -3,18 +3,28 @@ package ru.vspochernin.gigalearn.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import ru.vspochernin.gigalearn.dto.*;
+import ru.vspochernin.gigalearn.entity.Assignment;
 import ru.vspochernin.gigalearn.entity.Course;
 import ru.vspochernin.gigalearn.entity.Enrollment;
+import ru.vspochernin.gigalearn.entity.Lesson;
+import ru.vspochernin.gigalearn.entity.Quiz;
 import ru.vspochernin.gigalearn.entity.Tag;
 import ru.vspochernin.gigalearn.repository.EnrollmentRepository;
 import ru.vspochernin.gigalearn.repository.TagRepository;
 import ru.vspochernin.gigalearn.repository.UserRepository;
+import ru.vspochernin.gigalearn.service.CourseImportService;
+import ru.vspochernin.gigalearn.service.CourseReviewService;
+import ru.vspochernin.gigalearn.service.CourseSearchService;
 import ru.vspochernin.gigalearn.service.CourseService;
 import ru.vspochernin.gigalearn.service.EnrollmentService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -25,7 +35,10 @@ import java.util.stream.Collectors;
 public class CourseController {
 
     private final CourseService courseService;
+    private final CourseImportService courseImportService;
     private final EnrollmentService enrollmentService;
+    private final CourseReviewService courseReviewService;
+    private final CourseSearchService courseSearchService;
     private final TagRepository tagRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final UserRepository userRepository;
@@ -66,9 +79,40 @@ public class CourseController {
                 .tagNames(course.getTags().stream()
                         .map(Tag::getName)
                         .collect(Collectors.toList()))
+                .rating(courseReviewService.getRating(course.getId()))
                 .build();
     }
 
+    // Каталог курсов с keyset-пагинацией; рейтинг берется из агрегатов, а не из отзывов
+    @GetMapping
+    public PageResponseDto<CourseResponseDto> getCourses(@RequestParam(required = false) String pageToken,
+                                                         @RequestParam(defaultValue = "50") int size) {
+        return courseService.getCatalogPage(pageToken, size);
+    }
+
+    // Полнотекстовый поиск: q в синтаксисе websearch ("точная фраза", or, -исключить)
+    @GetMapping("/search")
+    public CourseSearchResponseDto searchCourses(@RequestParam(required = false) String q,
+                                                 @RequestParam(required = false) Long categoryId,
+                                                 @RequestParam(required = false) Long tagId,
+                                                 @RequestParam(required = false) String pageToken,
+                                                 @RequestParam(defaultValue = "20") int size) {
+        return courseSearchService.search(q, categoryId, tagId, pageToken, size);
+    }
+
+    @PostMapping("/import")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CourseImportResultDto importCourse(@Valid @RequestBody CourseImportDto dto) {
+        return courseImportService.importCourse(dto);
+    }
+
+    // Потоковый вариант импорта для больших документов: тело запроса не материализуется в DTO целиком
+    @PostMapping(value = "/import/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public CourseImportResultDto importCourseStream(InputStream body) throws IOException {
+        return courseImportService.importCourse(body);
+    }
+
     @GetMapping("/{id}")
     public CourseResponseDto getCourse(@PathVariable Long id) {
         Course course = courseService.getCourseWithContent(id);
@@ -84,6 +128,10 @@ public class CourseController {
                 .tagNames(course.getTags().stream()
                         .map(Tag::getName)
                         .collect(Collectors.toList()))
+                .rating(courseReviewService.getRating(course.getId()))
+                .modules(course.getModules().stream()
+                        .map(this::toModuleContent)
+                        .collect(Collectors.toList()))
                 .build();
     }
 
@@ -133,6 +181,18 @@ public class CourseController {
                 .build();
     }
 
+    @PostMapping("/{id}/enroll/bulk")
+    public BulkEnrollmentResultDto enrollStudents(@PathVariable Long id, @Valid @RequestBody BulkEnrollmentDto dto) {
+        return enrollmentService.enrollStudents(id, dto.getUserIds());
+    }
+
+    @GetMapping("/{id}/enrollments")
+    public PageResponseDto<EnrollmentResponseDto> getEnrollments(@PathVariable Long id,
+                                                                 @RequestParam(required = false) String pageToken,
+                                                                 @RequestParam(defaultValue = "50") int size) {
+        return enrollmentService.getEnrollmentsPage(id, pageToken, size);
+    }
+
     @DeleteMapping("/{id}/enroll")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void unenrollStudent(@PathVariable Long id, @RequestParam Long userId) {
@@ -143,5 +203,56 @@ public class CourseController {
             );
         }
     }
+
+    @PostMapping("/{id}/reviews")
+    @ResponseStatus(HttpStatus.CREATED)
+    public IdResponseDto addReview(@PathVariable Long id, @Valid @RequestBody CourseReviewCreateDto dto) {
+        long reviewId = courseReviewService.addReview(id, dto.getStudentId(), dto.getRating(), dto.getComment());
+        return IdResponseDto.builder().id(reviewId).build();
+    }
+
+    @DeleteMapping("/{id}/reviews/{reviewId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteReview(@PathVariable Long id, @PathVariable Long reviewId) {
+        courseReviewService.deleteReview(id, reviewId);
+    }
+
+    private ModuleContentDto toModuleContent(ru.vspochernin.gigalearn.entity.Module module) {
+        Quiz quiz = module.getQuiz();
+        return ModuleContentDto.builder()
+                .id(module.getId())
+                .title(module.getTitle())
+                .description(module.getDescription())
+                .orderIndex(module.getOrderIndex())
+                .lessons(module.getLessons().stream()
+                        .sorted(Comparator.comparing(Lesson::getId))
+                        .map(this::toLessonContent)
+                        .collect(Collectors.toList()))
+                .quiz(quiz == null ? null : QuizSummaryDto.builder()
+                        .id(quiz.getId())
+                        .title(quiz.getTitle())
+                        .timeLimit(quiz.getTimeLimit())
+                        .build())
+                .build();
+    }
+
+    private LessonContentDto toLessonContent(Lesson lesson) {
+        return LessonContentDto.builder()
+                .id(lesson.getId())
+                .title(lesson.getTitle())
+                .content(lesson.getContent())
+                .videoUrl(lesson.getVideoUrl())
+                .assignments(lesson.getAssignments().stream()
+                        .sorted(Comparator.comparing(Assignment::getId))
+                        .map(assignment -> AssignmentSummaryDto.builder()
+                                .id(assignment.getId())
+                                .title(assignment.getTitle())
+                                .description(assignment.getDescription())
+                                .dueDate(assignment.getDueDate())
+                                .maxScore(assignment.getMaxScore())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
 }
 
@@ -8,8 +8,10 @@ import org.springframework.web.bind.annotation.*;
 import ru.vspochernin.gigalearn.dto.*;
 import ru.vspochernin.gigalearn.entity.Question;
 import ru.vspochernin.gigalearn.entity.Quiz;
+import ru.vspochernin.gigalearn.entity.QuizAttempt;
 import ru.vspochernin.gigalearn.entity.QuizSubmission;
 import ru.vspochernin.gigalearn.repository.QuestionRepository;
+import ru.vspochernin.gigalearn.service.QuizAttemptService;
 import ru.vspochernin.gigalearn.service.QuizService;
 
 @RestController
@@ -18,6 +20,7 @@ import ru.vspochernin.gigalearn.service.QuizService;
 public class QuizController {
 
     private final QuizService quizService;
+    private final QuizAttemptService quizAttemptService;
     private final QuestionRepository questionRepository;
 
     @PostMapping("/{id}/questions")
@@ -46,9 +49,52 @@ public class QuizController {
                 id,
                 dto.getAnswersByQuestion()
         );
+        return toSubmissionResponse(submission);
+    }
+
+    @PostMapping("/{id}/attempts")
+    @ResponseStatus(HttpStatus.CREATED)
+    public QuizAttemptResponseDto startAttempt(@PathVariable Long id, @Valid @RequestBody QuizAttemptStartDto dto) {
+        QuizAttempt attempt = quizAttemptService.startAttempt(id, dto.getStudentId());
+
+        return QuizAttemptResponseDto.builder()
+                .id(attempt.getId())
+                .quizId(id)
+                .studentId(dto.getStudentId())
+                .startedAt(attempt.getStartedAt())
+                .deadlineAt(attempt.getDeadlineAt())
+                .build();
+    }
+
+    @PatchMapping("/{id}/attempts/{attemptId}/answers")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void saveAttemptAnswers(@PathVariable Long id,
+                                   @PathVariable Long attemptId,
+                                   @Valid @RequestBody QuizAttemptAnswersDto dto) {
+        quizAttemptService.saveAnswers(id, attemptId, dto.getAnswersByQuestion());
+    }
+
+    @PostMapping("/{id}/attempts/{attemptId}/submit")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Transactional
+    public QuizSubmissionResponseDto submitAttempt(@PathVariable Long id,
+                                                   @PathVariable Long attemptId,
+                                                   @Valid @RequestBody QuizAttemptSubmitDto dto) {
+        QuizSubmission submission = quizAttemptService.submitAttempt(id, attemptId, dto.getAnswersByQuestion());
+        return toSubmissionResponse(submission);
+    }
+
+    @GetMapping("/{id}/submissions")
+    public PageResponseDto<QuizSubmissionResponseDto> getSubmissions(@PathVariable Long id,
+                                                                     @RequestParam(required = false) String pageToken,
+                                                                     @RequestParam(defaultValue = "50") int size) {
+        return quizService.getSubmissionsPage(id, pageToken, size);
+    }
 
+    private QuizSubmissionResponseDto toSubmissionResponse(QuizSubmission submission) {
         Quiz quiz = submission.getQuiz();
-        int totalQuestions = quiz.getQuestions().size();
+        // Количество вопросов берем из закэшированного ключа ответов, не поднимая коллекцию questions
+        int totalQuestions = quizService.getQuestionCount(quiz.getId());
 
         return QuizSubmissionResponseDto.builder()
                 .id(submission.getId())
@@ -0,0 +1,21 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentSummaryDto {
+
+    private Long id;
+    private String title;
+    private String description;
+    private LocalDate dueDate;
+    private Integer maxScore;
+}
@@ -0,0 +1,23 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentDto {
+
+    @NotEmpty(message = "User IDs are required")
+    @Size(max = 50000, message = "At most 50000 users can be enrolled at once")
+    private List<@NotNull(message = "User ID is required") @Positive(message = "User ID must be positive") Long> userIds;
+}
@@ -0,0 +1,21 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentResultDto {
+
+    private Long courseId;
+
+    private Integer requested;
+
+    private Integer inserted;
+
+    private Integer alreadyEnrolled;
+}
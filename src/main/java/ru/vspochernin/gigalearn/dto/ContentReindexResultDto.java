@@ -0,0 +1,17 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentReindexResultDto {
+
+    private long documents;
+    private long durationMillis;
+    private int threads;
+}
@@ -0,0 +1,22 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentSearchHitDto {
+
+    // COURSE, MODULE, LESSON или ASSIGNMENT
+    private String type;
+    private Long id;
+    private Long courseId;
+    private String title;
+    // Фрагмент текста с найденными словами в <b>...</b>
+    private String snippet;
+    private float score;
+}
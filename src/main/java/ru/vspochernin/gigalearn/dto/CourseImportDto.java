@@ -0,0 +1,45 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseImportDto {
+
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    private String description;
+
+    private String duration;
+
+    private LocalDate startDate;
+
+    @NotNull(message = "Category ID is required")
+    @Positive(message = "Category ID must be positive")
+    private Long categoryId;
+
+    @NotNull(message = "Teacher ID is required")
+    @Positive(message = "Teacher ID must be positive")
+    private Long teacherId;
+
+    private Set<Long> tagIds;
+
+    @Valid
+    @Builder.Default
+    private List<ModuleImportDto> modules = new ArrayList<>();
+}
@@ -0,0 +1,27 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseImportResultDto {
+
+    private Long courseId;
+
+    private Integer modules;
+
+    private Integer lessons;
+
+    private Integer assignments;
+
+    private Integer quizzes;
+
+    private Integer questions;
+
+    private Integer answerOptions;
+}
@@ -0,0 +1,21 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseRatingDto {
+
+    private long reviewCount;
+    // null, пока у курса нет ни одной оценки
+    private Double average;
+    // Число оценок по звездам: 1..5 -> количество
+    private Map<Integer, Long> stars;
+}
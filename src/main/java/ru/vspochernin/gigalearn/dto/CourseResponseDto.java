@@ -22,5 +22,9 @@ public class CourseResponseDto {
     private String categoryName;
     private String teacherName;
     private List<String> tagNames;
+    // Агрегат оценок из course_rating, отзывы не сканируются
+    private CourseRatingDto rating;
+    // Дерево содержимого курса, заполняется только в GET /api/courses/{id}
+    private List<ModuleContentDto> modules;
 }
 
@@ -0,0 +1,26 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.vspochernin.gigalearn.repository.projection.CourseSearchHit;
+import ru.vspochernin.gigalearn.repository.projection.FacetCount;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSearchResponseDto {
+
+    private List<CourseSearchHit> items;
+
+    // Непрозрачный токен следующей страницы; null, если страница последняя
+    private String nextPageToken;
+
+    // Фасеты по всей выдаче; считаются только для первой страницы, на следующих - null
+    private List<FacetCount> categoryFacets;
+    private List<FacetCount> tagFacets;
+}
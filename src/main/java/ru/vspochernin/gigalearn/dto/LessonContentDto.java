@@ -0,0 +1,21 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonContentDto {
+
+    private Long id;
+    private String title;
+    private String content;
+    private String videoUrl;
+    private List<AssignmentSummaryDto> assignments;
+}
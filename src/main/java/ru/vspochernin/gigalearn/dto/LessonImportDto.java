@@ -0,0 +1,29 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonImportDto {
+
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    private String content;
+
+    private String videoUrl;
+
+    @Valid
+    @Builder.Default
+    private List<AssignmentCreateDto> assignments = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModuleContentDto {
+
+    private Long id;
+    private String title;
+    private String description;
+    private Integer orderIndex;
+    private List<LessonContentDto> lessons;
+    private QuizSummaryDto quiz;
+}
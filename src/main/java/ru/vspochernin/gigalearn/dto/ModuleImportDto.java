@@ -0,0 +1,32 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModuleImportDto {
+
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    private String description;
+
+    private Integer orderIndex;
+
+    @Valid
+    @Builder.Default
+    private List<LessonImportDto> lessons = new ArrayList<>();
+
+    @Valid
+    private QuizImportDto quiz;
+}
@@ -0,0 +1,20 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponseDto<T> {
+
+    private List<T> items;
+
+    // Непрозрачный токен следующей страницы; null, если страница последняя
+    private String nextPageToken;
+}
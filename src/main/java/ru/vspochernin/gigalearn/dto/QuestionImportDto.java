@@ -0,0 +1,25 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionImportDto {
+
+    @NotBlank(message = "Text is required")
+    private String text;
+
+    @Valid
+    @Builder.Default
+    private List<AnswerOptionCreateDto> options = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizAttemptAnswersDto {
+
+    // Только измененные вопросы; пустой список снимает ответ
+    @NotNull(message = "Answers are required")
+    private Map<Long, List<Long>> answersByQuestion;
+}
@@ -0,0 +1,22 @@
+package ru.vspochernin.gigalearn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizAttemptResponseDto {
+
+    private Long id;
+    private Long quizId;
+    private Long studentId;
+    private OffsetDateTime startedAt;
+    // null - квиз без ограничения по времени
+    private OffsetDateTime deadlineAt;
+}
@@ -0,0 +1,19 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizAttemptStartDto {
+
+    @NotNull(message = "Student ID is required")
+    @Positive(message = "Student ID must be positive")
+    private Long studentId;
+}
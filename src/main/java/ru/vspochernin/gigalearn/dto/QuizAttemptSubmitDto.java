@@ -0,0 +1,20 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizAttemptSubmitDto {
+
+    @NotNull(message = "Answers are required")
+    private Map<Long, List<Long>> answersByQuestion;
+}
@@ -0,0 +1,29 @@
+package ru.vspochernin.gigalearn.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizImportDto {
+
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    @Positive(message = "Time limit must be positive if provided")
+    private Integer timeLimitSeconds;
+
+    @Valid
+    @Builder.Default
+    private List<QuestionImportDto> questions = new ArrayList<>();
+}
@@ -2,6 +2,8 @@ package ru.vspochernin.gigalearn.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -10,6 +12,8 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course")
 @Table(name = "course")
 @Getter
 @Setter
@@ -20,7 +24,8 @@ import java.util.Set;
 public class Course {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_seq")
+    @SequenceGenerator(name = "course_seq", sequenceName = "course_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -42,6 +47,7 @@ public class Course {
     @JoinColumn(name = "teacher_id", nullable = false)
     private User teacher;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course.modules")
     @OneToMany(mappedBy = "course", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Module> modules = new ArrayList<>();
@@ -54,6 +60,7 @@ public class Course {
     @Builder.Default
     private List<CourseReview> reviews = new ArrayList<>();
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course.tags")
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "course_tag",
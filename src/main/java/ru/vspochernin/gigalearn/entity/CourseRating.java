@@ -0,0 +1,43 @@
+package ru.vspochernin.gigalearn.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Агрегат оценок курса (миграция V4). Hibernate его только читает: изменяется атомарным
+ * upsert-ом CourseRatingRepository#applyRating при записи и удалении отзыва.
+ */
+@Entity
+@Immutable
+@Table(name = "course_rating")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class CourseRating {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private Long courseId;
+
+    private long reviewCount;
+
+    private long ratingSum;
+
+    @Column(name = "stars_1")
+    private long stars1;
+
+    @Column(name = "stars_2")
+    private long stars2;
+
+    @Column(name = "stars_3")
+    private long stars3;
+
+    @Column(name = "stars_4")
+    private long stars4;
+
+    @Column(name = "stars_5")
+    private long stars5;
+}
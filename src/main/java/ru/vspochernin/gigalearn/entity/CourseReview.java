@@ -16,7 +16,8 @@ import java.time.OffsetDateTime;
 public class CourseReview {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_review_seq")
+    @SequenceGenerator(name = "course_review_seq", sequenceName = "course_review_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
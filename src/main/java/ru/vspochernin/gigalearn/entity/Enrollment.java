@@ -8,7 +8,9 @@ import java.time.LocalDate;
 @Entity
 @Table(
     name = "enrollment",
-    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "course_id"})
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "course_id"}),
+    // Индекс под keyset-пагинацию записей курса (course_id = ? AND id > ? ORDER BY id)
+    indexes = @Index(name = "idx_enrollment_course_id_id", columnList = "course_id, id")
 )
 @Getter
 @Setter
@@ -19,7 +21,8 @@ import java.time.LocalDate;
 public class Enrollment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "enrollment_seq")
+    @SequenceGenerator(name = "enrollment_seq", sequenceName = "enrollment_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -2,11 +2,15 @@ package ru.vspochernin.gigalearn.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "module")
 @Table(name = "module")
 @Getter
 @Setter
@@ -17,7 +21,8 @@ import java.util.List;
 public class Module {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "module_seq")
+    @SequenceGenerator(name = "module_seq", sequenceName = "module_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -33,6 +38,7 @@ public class Module {
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "module.lessons")
     @OneToMany(mappedBy = "module", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Lesson> lessons = new ArrayList<>();
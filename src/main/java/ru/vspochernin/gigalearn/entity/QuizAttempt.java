@@ -0,0 +1,49 @@
+package ru.vspochernin.gigalearn.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Entity
+// Не больше одной открытой попытки на (квиз, студент) - частичный уникальный индекс uk_quiz_attempt_open (V8)
+@Table(name = "quiz_attempt")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class QuizAttempt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quiz_attempt_seq")
+    @SequenceGenerator(name = "quiz_attempt_seq", sequenceName = "quiz_attempt_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "quiz_id", nullable = false)
+    private Quiz quiz;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "student_id", nullable = false)
+    private User student;
+
+    @Column(nullable = false)
+    private OffsetDateTime startedAt;
+
+    // null - квиз без ограничения по времени
+    private OffsetDateTime deadlineAt;
+
+    // null - попытка еще открыта
+    private OffsetDateTime finishedAt;
+
+    // Автосохраненные ответы (jsonb); в открытой попытке могут отставать от QuizAttemptAnswerBuffer
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<Long, List<Long>> answers;
+}
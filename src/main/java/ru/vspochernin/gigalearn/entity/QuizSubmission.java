@@ -6,7 +6,12 @@ import lombok.*;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "quiz_submission")
+// Таблица партиционирована по месяцам taken_at (миграция V3), см. PartitionMaintenanceService
+@Table(
+    name = "quiz_submission",
+    // Индекс под keyset-пагинацию результатов квиза (quiz_id = ? AND id > ? ORDER BY id)
+    indexes = @Index(name = "idx_quiz_submission_quiz_id_id", columnList = "quiz_id, id")
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +21,8 @@ import java.time.OffsetDateTime;
 public class QuizSubmission {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quiz_submission_seq")
+    @SequenceGenerator(name = "quiz_submission_seq", sequenceName = "quiz_submission_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -30,6 +36,15 @@ public class QuizSubmission {
 
     private Integer score;
 
+    // Ключ партиционирования: без него строка не попадет в месячную партицию
+    @Column(nullable = false)
     private OffsetDateTime takenAt;
+
+    @PrePersist
+    void fillTakenAt() {
+        if (takenAt == null) {
+            takenAt = OffsetDateTime.now();
+        }
+    }
 }
 
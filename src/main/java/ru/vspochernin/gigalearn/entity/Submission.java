@@ -6,9 +6,13 @@ import lombok.*;
 import java.time.OffsetDateTime;
 
 @Entity
+// Таблица партиционирована по месяцам submitted_at (миграция V3), см. PartitionMaintenanceService.
+// Уникальность пары (студент, задание) обеспечивает таблица submission_key с триггером:
+// уникальный индекс партиционированной таблицы обязан включать ключ партиционирования
 @Table(
     name = "submission",
-    uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "assignment_id"})
+    // Индекс под keyset-пагинацию сдач задания (assignment_id = ? AND id > ? ORDER BY id)
+    indexes = @Index(name = "idx_submission_assignment_id_id", columnList = "assignment_id, id")
 )
 @Getter
 @Setter
@@ -19,7 +23,8 @@ import java.time.OffsetDateTime;
 public class Submission {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submission_seq")
+    @SequenceGenerator(name = "submission_seq", sequenceName = "submission_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -31,6 +36,8 @@ public class Submission {
     @JoinColumn(name = "student_id", nullable = false)
     private User student;
 
+    // Ключ партиционирования: без него строка не попадет в месячную партицию
+    @Column(nullable = false)
     private OffsetDateTime submittedAt;
 
     @Column(columnDefinition = "TEXT")
@@ -40,5 +47,12 @@ public class Submission {
 
     @Column(columnDefinition = "TEXT")
     private String feedback;
+
+    @PrePersist
+    void fillSubmittedAt() {
+        if (submittedAt == null) {
+            submittedAt = OffsetDateTime.now();
+        }
+    }
 }
 
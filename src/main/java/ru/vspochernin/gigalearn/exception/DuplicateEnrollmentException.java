@@ -2,8 +2,9 @@ package ru.vspochernin.gigalearn.exception;
 
 public class DuplicateEnrollmentException extends RuntimeException {
 
+    // Повторная запись - штатный ответ 409 при открытии набора, стек вызовов для нее не заполняем
     public DuplicateEnrollmentException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public DuplicateEnrollmentException(String message, Throwable cause) {
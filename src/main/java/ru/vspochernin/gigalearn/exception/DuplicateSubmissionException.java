@@ -2,8 +2,10 @@ package ru.vspochernin.gigalearn.exception;
 
 public class DuplicateSubmissionException extends RuntimeException {
 
+    // Дубликат - ожидаемый исход (например, повторная отправка формы), а не сбой:
+    // стек вызовов не собираем, это заметная часть стоимости исключения под нагрузкой
     public DuplicateSubmissionException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public DuplicateSubmissionException(String message, Throwable cause) {
@@ -0,0 +1,9 @@
+package ru.vspochernin.gigalearn.exception;
+
+public class QuizAttemptClosedException extends RuntimeException {
+
+    // Сдача после дедлайна или повторная сдача - обычный отказ клиенту, стек вызовов не нужен
+    public QuizAttemptClosedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,12 +1,20 @@
 package ru.vspochernin.gigalearn.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.vspochernin.gigalearn.entity.Category;
 
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
+    // Результат кешируется в query cache, сама сущность - в регионе "category"
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.category-by-name")
+    })
     Optional<Category> findByName(String name);
 }
 
@@ -0,0 +1,48 @@
+package ru.vspochernin.gigalearn.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.vspochernin.gigalearn.entity.CourseRating;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CourseRatingRepository extends JpaRepository<CourseRating, Long> {
+
+    // Агрегаты страницы каталога одним IN-запросом по первичному ключу
+    List<CourseRating> findByCourseIdIn(Collection<Long> courseIds);
+
+    /**
+     * Прибавляет оценку к агрегату курса (delta = 1) или вычитает ее (delta = -1).
+     * Upsert атомарен: конкурентные отзывы на один курс сериализуются на строке course_rating,
+     * приращения не теряются. Первый отзыв создает строку.
+     * <p>
+     * Native-запрос без объявленных таблиц Hibernate считает затрагивающим все сущности и после коммита
+     * очищает все регионы кеша второго уровня и query cache. Подсказка ограничивает очистку таблицей course_rating.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_rating"))
+    @Query(value = """
+            insert into course_rating as r (course_id, review_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+            values (:courseId, :delta, :delta * :rating,
+                    case when :rating = 1 then :delta else 0 end,
+                    case when :rating = 2 then :delta else 0 end,
+                    case when :rating = 3 then :delta else 0 end,
+                    case when :rating = 4 then :delta else 0 end,
+                    case when :rating = 5 then :delta else 0 end)
+            on conflict (course_id) do update set
+                review_count = r.review_count + excluded.review_count,
+                rating_sum = r.rating_sum + excluded.rating_sum,
+                stars_1 = r.stars_1 + excluded.stars_1,
+                stars_2 = r.stars_2 + excluded.stars_2,
+                stars_3 = r.stars_3 + excluded.stars_3,
+                stars_4 = r.stars_4 + excluded.stars_4,
+                stars_5 = r.stars_5 + excluded.stars_5
+            """, nativeQuery = true)
+    void applyRating(@Param("courseId") long courseId, @Param("rating") int rating, @Param("delta") int delta);
+}
@@ -1,14 +1,55 @@
 package ru.vspochernin.gigalearn.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.vspochernin.gigalearn.entity.Course;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface CourseRepository extends JpaRepository<Course, Long> {
+public interface CourseRepository extends JpaRepository<Course, Long>, CourseRepositoryCustom {
 
     List<Course> findByCategoryId(Long categoryId);
 
     List<Course> findByTeacherId(Long teacherId);
-}
 
+    // Курс вместе с категорией, преподавателем и тегами (tags - Set, поэтому декартова произведения bag-ов нет)
+    @Query("""
+            select c from Course c
+            join fetch c.category
+            join fetch c.teacher
+            left join fetch c.tags
+            where c.id = :id
+            """)
+    Optional<Course> findWithDetailsById(@Param("id") Long id);
+
+    // Инициализирует коллекцию modules курса в порядке orderIndex
+    @Query("""
+            select c from Course c
+            left join fetch c.modules m
+            where c.id = :id
+            order by m.orderIndex, m.id
+            """)
+    Optional<Course> findWithModulesById(@Param("id") Long id);
+
+    // Keyset-страница каталога: курсы с id больше afterId вместе с категорией и преподавателем
+    @Query("""
+            select c from Course c
+            join fetch c.category
+            join fetch c.teacher
+            where c.id > :afterId
+            order by c.id
+            """)
+    List<Course> findPage(@Param("afterId") Long afterId, Limit limit);
+
+    // Теги страницы каталога отдельным запросом: fetch коллекции вместе с LIMIT пагинировал бы в памяти
+    @Query("""
+            select distinct c from Course c
+            left join fetch c.tags
+            where c.id in :ids
+            """)
+    List<Course> findWithTagsByIdIn(@Param("ids") Collection<Long> ids);
+}
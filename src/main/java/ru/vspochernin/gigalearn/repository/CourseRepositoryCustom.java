@@ -0,0 +1,22 @@
+package ru.vspochernin.gigalearn.repository;
+
+import ru.vspochernin.gigalearn.repository.projection.CourseSearchHit;
+import ru.vspochernin.gigalearn.repository.projection.FacetCount;
+
+import java.util.List;
+
+public interface CourseRepositoryCustom {
+
+    /**
+     * Полнотекстовый поиск по course.search_vector (GIN-индекс), упорядоченный по убыванию ранга и id.
+     * Keyset-продолжение: курсы с рангом меньше afterRank или с тем же рангом и id больше afterId.
+     * categoryId и tagId необязательны (null - без фильтра).
+     */
+    List<CourseSearchHit> search(String query, Long categoryId, Long tagId, double afterRank, long afterId, int limit);
+
+    // Число найденных курсов по категориям, по убыванию
+    List<FacetCount> countSearchHitsByCategory(String query, Long categoryId, Long tagId, int limit);
+
+    // Число найденных курсов по тегам, по убыванию
+    List<FacetCount> countSearchHitsByTag(String query, Long categoryId, Long tagId, int limit);
+}
@@ -0,0 +1,98 @@
+package ru.vspochernin.gigalearn.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.vspochernin.gigalearn.repository.projection.CourseSearchHit;
+import ru.vspochernin.gigalearn.repository.projection.FacetCount;
+
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CourseRepositoryCustomImpl implements CourseRepositoryCustom {
+
+    // Условие поиска с необязательными фильтрами; запрос разбирается websearch_to_tsquery
+    // (кавычки, OR, минус), поэтому пользовательский ввод не ломает синтаксис tsquery
+    private static final String MATCH = """
+            c.search_vector @@ websearch_to_tsquery('russian', :query)
+            and (cast(:categoryId as bigint) is null or c.category_id = :categoryId)
+            and (cast(:tagId as bigint) is null
+                 or exists (select 1 from course_tag ft where ft.course_id = c.id and ft.tag_id = :tagId))
+            """;
+
+    // Нормализация 32 (rank / (rank + 1)) держит ранг в [0, 1): первая страница - afterRank = 1.
+    // real из ts_rank_cd переводится в float8 без потерь, и ранг из токена страницы сравнивается точно
+    private static final String SEARCH_SQL = """
+            select id, title, description, category_name, rank
+            from (select c.id, c.title, c.description, cat.name as category_name,
+                         ts_rank_cd(c.search_vector, websearch_to_tsquery('russian', :query), 32)::float8 as rank
+                  from course c
+                  join category cat on cat.id = c.category_id
+                  where %s) hits
+            where rank < :afterRank or (rank = :afterRank and id > :afterId)
+            order by rank desc, id
+            limit :limit
+            """.formatted(MATCH);
+
+    private static final String CATEGORY_FACETS_SQL = """
+            select cat.id, cat.name, count(*) as hits
+            from course c
+            join category cat on cat.id = c.category_id
+            where %s
+            group by cat.id, cat.name
+            order by hits desc, cat.name
+            limit :limit
+            """.formatted(MATCH);
+
+    private static final String TAG_FACETS_SQL = """
+            select t.id, t.name, count(*) as hits
+            from course c
+            join course_tag ct on ct.course_id = c.id
+            join tag t on t.id = ct.tag_id
+            where %s
+            group by t.id, t.name
+            order by hits desc, t.name
+            limit :limit
+            """.formatted(MATCH);
+
+    private static final RowMapper<FacetCount> FACET_MAPPER = (rs, rowNum) ->
+            new FacetCount(rs.getLong("id"), rs.getString("name"), rs.getLong("hits"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<CourseSearchHit> search(String query, Long categoryId, Long tagId,
+                                        double afterRank, long afterId, int limit) {
+        MapSqlParameterSource params = matchParams(query, categoryId, tagId)
+                .addValue("afterRank", afterRank, Types.DOUBLE)
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(SEARCH_SQL, params, (rs, rowNum) -> new CourseSearchHit(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("description"),
+                rs.getString("category_name"),
+                rs.getDouble("rank")));
+    }
+
+    @Override
+    public List<FacetCount> countSearchHitsByCategory(String query, Long categoryId, Long tagId, int limit) {
+        return jdbcTemplate.query(CATEGORY_FACETS_SQL,
+                matchParams(query, categoryId, tagId).addValue("limit", limit), FACET_MAPPER);
+    }
+
+    @Override
+    public List<FacetCount> countSearchHitsByTag(String query, Long categoryId, Long tagId, int limit) {
+        return jdbcTemplate.query(TAG_FACETS_SQL,
+                matchParams(query, categoryId, tagId).addValue("limit", limit), FACET_MAPPER);
+    }
+
+    private static MapSqlParameterSource matchParams(String query, Long categoryId, Long tagId) {
+        return new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("categoryId", categoryId, Types.BIGINT)
+                .addValue("tagId", tagId, Types.BIGINT);
+    }
+}
@@ -1,17 +1,52 @@
 package ru.vspochernin.gigalearn.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.vspochernin.gigalearn.entity.Enrollment;
+import ru.vspochernin.gigalearn.repository.projection.CourseSummary;
+import ru.vspochernin.gigalearn.repository.projection.StudentSummary;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
+public interface EnrollmentRepository extends JpaRepository<Enrollment, Long>, EnrollmentRepositoryCustom {
 
     List<Enrollment> findByUserId(Long userId);
 
     List<Enrollment> findByCourseId(Long courseId);
 
     Optional<Enrollment> findByUserIdAndCourseId(Long userId, Long courseId);
+
+    // Курсы студента одним запросом, только нужные колонки
+    @Query("""
+            select new ru.vspochernin.gigalearn.repository.projection.CourseSummary(c.id, c.title, c.description)
+            from Enrollment e
+            join e.course c
+            where e.user.id = :userId
+            order by e.id
+            """)
+    List<CourseSummary> findCourseSummariesByUserId(@Param("userId") Long userId);
+
+    // Студенты курса одним запросом, только нужные колонки
+    @Query("""
+            select new ru.vspochernin.gigalearn.repository.projection.StudentSummary(u.id, u.name, u.email)
+            from Enrollment e
+            join e.user u
+            where e.course.id = :courseId
+            order by e.id
+            """)
+    List<StudentSummary> findStudentSummariesByCourseId(@Param("courseId") Long courseId);
+
+    // Keyset-страница: записи курса с id больше afterId
+    @Query("""
+            select e from Enrollment e
+            join fetch e.user
+            join fetch e.course
+            where e.course.id = :courseId and e.id > :afterId
+            order by e.id
+            """)
+    List<Enrollment> findPageByCourseId(@Param("courseId") Long courseId, @Param("afterId") Long afterId, Limit limit);
 }
 
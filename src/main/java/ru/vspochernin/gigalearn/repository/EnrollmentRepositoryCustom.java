@@ -0,0 +1,22 @@
+package ru.vspochernin.gigalearn.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface EnrollmentRepositoryCustom {
+
+    /**
+     * Записывает пользователей на курс через INSERT ... ON CONFLICT (user_id, course_id) DO NOTHING.
+     *
+     * @return количество реально вставленных записей (уже записанные пользователи пропускаются)
+     */
+    int insertIgnoringDuplicates(long courseId, List<Long> userIds, LocalDate enrollDate, String status);
+
+    /**
+     * Записывает пользователя на курс одним INSERT ... ON CONFLICT (user_id, course_id) DO NOTHING RETURNING id.
+     *
+     * @return id новой записи или пустой Optional, если пользователь уже записан
+     */
+    Optional<Long> insertIfAbsent(long courseId, long userId, LocalDate enrollDate, String status);
+}
@@ -0,0 +1,84 @@
+package ru.vspochernin.gigalearn.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.vspochernin.gigalearn.entity.Enrollment;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class EnrollmentRepositoryCustomImpl implements EnrollmentRepositoryCustom {
+
+    // Сколько строк вставляется одним INSERT-ом (параметры передаются массивами, поэтому лимит
+    // на число bind-параметров не мешает)
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO enrollment (id, user_id, course_id, enroll_date, status)
+            SELECT t.id, t.user_id, ?, ?, ?
+            FROM unnest(?::bigint[], ?::bigint[]) AS t(id, user_id)
+            ON CONFLICT (user_id, course_id) DO NOTHING
+            """;
+
+    private static final String INSERT_ONE_SQL = """
+            INSERT INTO enrollment (id, user_id, course_id, enroll_date, status)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, course_id) DO NOTHING
+            RETURNING id
+            """;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertIgnoringDuplicates(long courseId, List<Long> userIds, LocalDate enrollDate, String status) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = idGenerator(session);
+
+        int inserted = 0;
+        for (int from = 0; from < userIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + CHUNK_SIZE, userIds.size()));
+            Long[] ids = new Long[chunk.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = (Long) idGenerator.generate(session, null);
+            }
+            Long[] chunkUserIds = chunk.toArray(new Long[0]);
+
+            inserted += jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+                statement.setLong(1, courseId);
+                statement.setDate(2, Date.valueOf(enrollDate));
+                statement.setString(3, status);
+                statement.setArray(4, connection.createArrayOf("bigint", ids));
+                statement.setArray(5, connection.createArrayOf("bigint", chunkUserIds));
+                return statement;
+            });
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<Long> insertIfAbsent(long courseId, long userId, LocalDate enrollDate, String status) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        long id = (Long) idGenerator(session).generate(session, null);
+
+        // При конфликте RETURNING не вернет строк: дубликат виден без исключения и без отката транзакции
+        List<Long> ids = jdbcTemplate.queryForList(INSERT_ONE_SQL, Long.class,
+                id, userId, courseId, Date.valueOf(enrollDate), status);
+        return ids.stream().findFirst();
+    }
+
+    // Идентификаторы берем из генератора Hibernate, чтобы не пересечься с pooled-оптимизатором enrollment_seq
+    private static IdentifierGenerator idGenerator(SharedSessionContractImplementor session) {
+        return (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Enrollment.class)
+                .getGenerator();
+    }
+}
@@ -1,6 +1,8 @@
 package ru.vspochernin.gigalearn.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.vspochernin.gigalearn.entity.Lesson;
 
 import java.util.List;
@@ -8,5 +10,12 @@ import java.util.List;
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
 
     List<Lesson> findByModuleId(Long moduleId);
-}
 
+    // Уроки всех модулей курса с заданиями одним запросом
+    @Query("""
+            select l from Lesson l
+            left join fetch l.assignments
+            where l.module.course.id = :courseId
+            """)
+    List<Lesson> findWithAssignmentsByCourseId(@Param("courseId") Long courseId);
+}
@@ -1,6 +1,8 @@
 package ru.vspochernin.gigalearn.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.vspochernin.gigalearn.entity.Module;
 
 import java.util.List;
@@ -8,5 +10,14 @@ import java.util.List;
 public interface ModuleRepository extends JpaRepository<Module, Long> {
 
     List<Module> findByCourseId(Long courseId);
-}
 
+    // Модули курса с уроками и квизом одним запросом.
+    // Квиз - обратная сторона one-to-one, без join fetch Hibernate догружал бы его отдельным SELECT на каждый модуль
+    @Query("""
+            select m from Module m
+            left join fetch m.lessons
+            left join fetch m.quiz
+            where m.course.id = :courseId
+            """)
+    List<Module> findWithLessonsAndQuizByCourseId(@Param("courseId") Long courseId);
+}
@@ -1,12 +1,23 @@
 package ru.vspochernin.gigalearn.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.vspochernin.gigalearn.entity.Question;
+import ru.vspochernin.gigalearn.repository.projection.AnswerKeyRow;
 
 import java.util.List;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
 
     List<Question> findByQuizId(Long quizId);
-}
 
+    // Весь ключ ответов квиза одним запросом (LEFT JOIN, чтобы не потерять вопросы без вариантов)
+    @Query("""
+            select q.id as questionId, o.id as optionId, o.isCorrect as correct
+            from Question q
+            left join q.answerOptions o
+            where q.quiz.id = :quizId
+            """)
+    List<AnswerKeyRow> findAnswerKeyByQuizId(@Param("quizId") Long quizId);
+}
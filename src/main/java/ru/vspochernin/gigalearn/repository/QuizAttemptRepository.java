@@ -0,0 +1,35 @@
+package ru.vspochernin.gigalearn.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.vspochernin.gigalearn.entity.QuizAttempt;
+import ru.vspochernin.gigalearn.repository.projection.AttemptDeadline;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long> {
+
+    Optional<QuizAttempt> findByQuizIdAndStudentIdAndFinishedAtIsNull(Long quizId, Long studentId);
+
+    // Блокировка строки: ручная сдача и автосдача по таймеру не закроют попытку дважды
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from QuizAttempt a where a.id = :id")
+    Optional<QuizAttempt> findByIdForUpdate(@Param("id") Long id);
+
+    // Открытые попытки из пачки сработавших таймеров; уже закрытые ручной сдачей отсеиваются после ожидания блокировки
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from QuizAttempt a where a.id in :ids and a.finishedAt is null")
+    List<QuizAttempt> findOpenByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select new ru.vspochernin.gigalearn.repository.projection.AttemptDeadline(a.id, a.deadlineAt)
+            from QuizAttempt a
+            where a.finishedAt is null and a.deadlineAt is not null
+            """)
+    List<AttemptDeadline> findOpenDeadlines();
+}
@@ -1,6 +1,9 @@
 package ru.vspochernin.gigalearn.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.vspochernin.gigalearn.entity.QuizSubmission;
 
 import java.util.List;
@@ -10,5 +13,15 @@ public interface QuizSubmissionRepository extends JpaRepository<QuizSubmission,
     List<QuizSubmission> findByQuizId(Long quizId);
 
     List<QuizSubmission> findByStudentId(Long studentId);
+
+    // Keyset-страница: результаты квиза с id больше afterId
+    @Query("""
+            select qs from QuizSubmission qs
+            join fetch qs.student
+            join fetch qs.quiz
+            where qs.quiz.id = :quizId and qs.id > :afterId
+            order by qs.id
+            """)
+    List<QuizSubmission> findPageByQuizId(@Param("quizId") Long quizId, @Param("afterId") Long afterId, Limit limit);
 }
 
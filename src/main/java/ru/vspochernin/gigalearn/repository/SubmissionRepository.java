@@ -1,17 +1,55 @@
 package ru.vspochernin.gigalearn.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.vspochernin.gigalearn.dto.SubmissionResponseDto;
 import ru.vspochernin.gigalearn.entity.Submission;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface SubmissionRepository extends JpaRepository<Submission, Long> {
+public interface SubmissionRepository extends JpaRepository<Submission, Long>, SubmissionRepositoryCustom {
 
     List<Submission> findByAssignmentId(Long assignmentId);
 
     List<Submission> findByStudentId(Long studentId);
 
     Optional<Submission> findByStudentIdAndAssignmentId(Long studentId, Long assignmentId);
+
+    // Сдачи задания сразу в виде DTO, без загрузки сущностей
+    @Query("""
+            select new ru.vspochernin.gigalearn.dto.SubmissionResponseDto(
+                s.id, st.id, st.name, a.id, a.title, s.content, s.submittedAt, s.score, s.feedback)
+            from Submission s
+            join s.student st
+            join s.assignment a
+            where a.id = :assignmentId
+            order by s.id
+            """)
+    List<SubmissionResponseDto> findResponsesByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    // Сдачи студента сразу в виде DTO, без загрузки сущностей
+    @Query("""
+            select new ru.vspochernin.gigalearn.dto.SubmissionResponseDto(
+                s.id, st.id, st.name, a.id, a.title, s.content, s.submittedAt, s.score, s.feedback)
+            from Submission s
+            join s.student st
+            join s.assignment a
+            where st.id = :studentId
+            order by s.id
+            """)
+    List<SubmissionResponseDto> findResponsesByStudentId(@Param("studentId") Long studentId);
+
+    // Keyset-страница: сдачи задания с id больше afterId
+    @Query("""
+            select s from Submission s
+            join fetch s.student
+            join fetch s.assignment
+            where s.assignment.id = :assignmentId and s.id > :afterId
+            order by s.id
+            """)
+    List<Submission> findPageByAssignmentId(@Param("assignmentId") Long assignmentId, @Param("afterId") Long afterId, Limit limit);
 }
 
@@ -0,0 +1,15 @@
+package ru.vspochernin.gigalearn.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+public interface SubmissionRepositoryCustom {
+
+    /**
+     * Сдает задание одним запросом: резервирует пару (студент, задание) в submission_key через
+     * INSERT ... ON CONFLICT DO NOTHING и в том же запросе вставляет сдачу.
+     *
+     * @return id новой сдачи или пустой Optional, если студент уже сдавал это задание
+     */
+    Optional<Long> insertIfAbsent(long studentId, long assignmentId, String content, OffsetDateTime submittedAt);
+}
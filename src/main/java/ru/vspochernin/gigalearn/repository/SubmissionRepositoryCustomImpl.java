@@ -0,0 +1,50 @@
+package ru.vspochernin.gigalearn.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.vspochernin.gigalearn.entity.Submission;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class SubmissionRepositoryCustomImpl implements SubmissionRepositoryCustom {
+
+    // Уникальность пары держит submission_key (у партиционированной submission нет подходящего
+    // уникального индекса), поэтому ON CONFLICT направлен на ключ. Если ключ занят, CTE пуст
+    // и сдача не вставляется. Триггер submission_key_sync узнает резервацию по submission_id
+    private static final String INSERT_SQL = """
+            WITH reserved AS (
+                INSERT INTO submission_key (student_id, assignment_id, submission_id)
+                VALUES (?, ?, ?)
+                ON CONFLICT (student_id, assignment_id) DO NOTHING
+                RETURNING submission_id, student_id, assignment_id
+            )
+            INSERT INTO submission (id, assignment_id, student_id, submitted_at, content)
+            SELECT r.submission_id, r.assignment_id, r.student_id, ?, ?
+            FROM reserved r
+            RETURNING id
+            """;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Long> insertIfAbsent(long studentId, long assignmentId, String content, OffsetDateTime submittedAt) {
+        // Идентификатор берем из генератора Hibernate, чтобы не пересечься с pooled-оптимизатором submission_seq
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Submission.class)
+                .getGenerator();
+        long id = (Long) idGenerator.generate(session, null);
+
+        // При конфликте RETURNING не вернет строк: дубликат виден без исключения и без отката транзакции
+        List<Long> ids = jdbcTemplate.queryForList(INSERT_SQL, Long.class,
+                studentId, assignmentId, id, submittedAt, content);
+        return ids.stream().findFirst();
+    }
+}
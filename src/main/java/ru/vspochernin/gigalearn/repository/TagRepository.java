@@ -1,12 +1,20 @@
 package ru.vspochernin.gigalearn.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.vspochernin.gigalearn.entity.Tag;
 
 import java.util.Optional;
 
 public interface TagRepository extends JpaRepository<Tag, Long> {
 
+    // Результат кешируется в query cache, сама сущность - в регионе "tag"
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.tag-by-name")
+    })
     Optional<Tag> findByName(String name);
 }
 
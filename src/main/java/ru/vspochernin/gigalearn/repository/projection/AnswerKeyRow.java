@@ -0,0 +1,14 @@
+package ru.vspochernin.gigalearn.repository.projection;
+
+/**
+ * Строка ключа ответов квиза: пара "вопрос - вариант ответа" с флагом правильности.
+ * Для вопроса без вариантов optionId и correct равны null.
+ */
+public interface AnswerKeyRow {
+
+    Long getQuestionId();
+
+    Long getOptionId();
+
+    Boolean getCorrect();
+}
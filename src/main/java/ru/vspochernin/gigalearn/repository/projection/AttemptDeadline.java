@@ -0,0 +1,10 @@
+package ru.vspochernin.gigalearn.repository.projection;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Дедлайн открытой попытки для восстановления колеса таймеров при старте.
+ * Заполняется конструкторным выражением JPQL, без загрузки сущности QuizAttempt.
+ */
+public record AttemptDeadline(Long id, OffsetDateTime deadlineAt) {
+}
@@ -0,0 +1,8 @@
+package ru.vspochernin.gigalearn.repository.projection;
+
+/**
+ * Найденный курс: поля для выдачи каталога и ранг совпадения (ts_rank_cd, нормирован в [0, 1)).
+ * Заполняется напрямую из SQL, без загрузки сущности Course.
+ */
+public record CourseSearchHit(Long id, String title, String description, String categoryName, double rank) {
+}
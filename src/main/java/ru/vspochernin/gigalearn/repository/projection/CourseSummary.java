@@ -0,0 +1,8 @@
+package ru.vspochernin.gigalearn.repository.projection;
+
+/**
+ * Краткие данные курса для списка курсов студента.
+ * Заполняется конструкторным выражением JPQL, без загрузки сущности Course.
+ */
+public record CourseSummary(Long id, String title, String description) {
+}
@@ -0,0 +1,7 @@
+package ru.vspochernin.gigalearn.repository.projection;
+
+/**
+ * Значение фасета (категория или тег) и число найденных курсов с ним.
+ */
+public record FacetCount(Long id, String name, long count) {
+}
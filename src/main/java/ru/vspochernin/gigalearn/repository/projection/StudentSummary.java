@@ -0,0 +1,8 @@
+package ru.vspochernin.gigalearn.repository.projection;
+
+/**
+ * Краткие данные студента для списков записей на курс.
+ * Заполняется конструкторным выражением JPQL, без загрузки сущности User.
+ */
+public record StudentSummary(Long id, String name, String email) {
+}
@@ -0,0 +1,93 @@
+package ru.vspochernin.gigalearn.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченный по размеру LRU-кэш скомпилированных ключей ответов квизов.
+ * Каждая инвалидация увеличивает общую версию кэша; ключ, скомпилированный до инвалидации,
+ * в кэш уже не попадет, даже если его загрузка завершилась позже.
+ * <p>
+ * Версия одна на весь кэш, а не на квиз: иначе карта версий росла бы с каждым когда-либо
+ * измененным квизом. Цена - ключ, загруженный во время правки другого квиза, не кэшируется
+ * и будет загружен еще раз; правки вопросов редки по сравнению с прохождениями.
+ * <p>
+ * Вместо synchronized используется ReentrantLock: на Java 21 ожидание монитора
+ * блокирует поток-носитель виртуального потока (pinning), а ожидание lock - нет.
+ */
+@Component
+public class AnswerKeyCache {
+
+    private final Map<Long, CompiledAnswerKey> keys;
+    private long version;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public AnswerKeyCache(@Value("${gigalearn.quiz.answer-key-cache.max-size:1000}") int maxSize) {
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompiledAnswerKey> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public CompiledAnswerKey get(long quizId) {
+        lock.lock();
+        try {
+            return keys.get(quizId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long currentVersion() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(long quizId, CompiledAnswerKey key) {
+        lock.lock();
+        try {
+            // Ключ, собранный до последней инвалидации, устарел
+            if (key.getVersion() == version) {
+                keys.put(quizId, key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(long quizId) {
+        evict(quizId);
+
+        // Повторно сбрасываем после коммита: до него другие транзакции еще видят старые данные
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(quizId);
+                }
+            });
+        }
+    }
+
+    private void evict(long quizId) {
+        lock.lock();
+        try {
+            version++;
+            keys.remove(quizId);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.vspochernin.gigalearn.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хешированное колесо таймеров дедлайнов открытых попыток квизов ({@link QuizAttemptService}).
+ * <p>
+ * Время делится на тики длины tick, тик дедлайна попадает в ячейку {@code tick & (wheelSize - 1)}.
+ * Ячейка - двусвязный список узлов, плюс индекс id -> узел: постановка и отмена таймера - O(1)
+ * независимо от числа попыток. {@link #advance} обходит только ячейки прошедших тиков и забирает из них
+ * узлы, чей тик наступил; узлы следующих оборотов колеса остаются на месте. Память - один узел
+ * и одна запись индекса на попытку, массив ячеек фиксирован.
+ * <p>
+ * Дедлайн округляется вверх до границы тика: таймер срабатывает не раньше дедлайна и не позже чем через тик.
+ */
+final class AttemptTimerWheel {
+
+    private final long tickMillis;
+    private final Node[] buckets;
+    private final int mask;
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Последний обработанный тик: таймеры с тиком <= currentTick уже выданы
+    private long currentTick;
+
+    AttemptTimerWheel(Duration tick, int wheelSize, Instant start) {
+        if (tick.toMillis() <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Timer wheel tick must be at least 1ms and size a power of two: %s, %d", tick, wheelSize));
+        }
+        this.tickMillis = tick.toMillis();
+        this.buckets = new Node[wheelSize];
+        this.mask = wheelSize - 1;
+        this.currentTick = Math.floorDiv(start.toEpochMilli(), tickMillis);
+    }
+
+    /**
+     * Ставит (или переставляет) таймер попытки. Дедлайн в прошлом сработает на ближайшем тике.
+     */
+    void schedule(long attemptId, Instant deadline) {
+        long tick = -Math.floorDiv(-deadline.toEpochMilli(), tickMillis);
+        lock.lock();
+        try {
+            Node node = nodes.get(attemptId);
+            if (node != null) {
+                unlink(node);
+            } else {
+                node = new Node(attemptId);
+                nodes.put(attemptId, node);
+            }
+            node.tick = Math.max(tick, currentTick + 1);
+            link(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cancel(long attemptId) {
+        lock.lock();
+        try {
+            Node node = nodes.remove(attemptId);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Продвигает колесо до момента now.
+     *
+     * @return id попыток, чей дедлайн наступил; их таймеры сняты
+     */
+    List<Long> advance(Instant now) {
+        long targetTick = Math.floorDiv(now.toEpochMilli(), tickMillis);
+        List<Long> due = new ArrayList<>();
+        lock.lock();
+        try {
+            if (targetTick <= currentTick) {
+                return due;
+            }
+            // После полного оборота все ячейки уже просмотрены, дальше идти незачем
+            long steps = Math.min(targetTick - currentTick, buckets.length);
+            for (long tick = currentTick + 1; tick <= currentTick + steps; tick++) {
+                Node node = buckets[(int) (tick & mask)];
+                while (node != null) {
+                    Node next = node.next;
+                    if (node.tick <= targetTick) {
+                        unlink(node);
+                        nodes.remove(node.attemptId);
+                        due.add(node.attemptId);
+                    }
+                    node = next;
+                }
+            }
+            currentTick = targetTick;
+            return due;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void link(Node node) {
+        int bucket = (int) (node.tick & mask);
+        Node head = buckets[bucket];
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        buckets[bucket] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            buckets[(int) (node.tick & mask)] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static final class Node {
+
+        private final long attemptId;
+        private long tick;
+        private Node prev;
+        private Node next;
+
+        private Node(long attemptId) {
+            this.attemptId = attemptId;
+        }
+    }
+}
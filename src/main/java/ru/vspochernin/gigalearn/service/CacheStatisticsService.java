@@ -0,0 +1,44 @@
+package ru.vspochernin.gigalearn.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import ru.vspochernin.gigalearn.dto.CacheRegionStatsDto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class CacheStatisticsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public List<CacheRegionStatsDto> getRegionStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Регионы запросов создаются лениво и появляются в списке после первого кешируемого запроса
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> toDto(region, statistics.getCacheRegionStatistics(region)))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static CacheRegionStatsDto toDto(String region, CacheRegionStatistics regionStatistics) {
+        if (regionStatistics == null) {
+            return null;
+        }
+        return CacheRegionStatsDto.builder()
+                .region(region)
+                .hitCount(regionStatistics.getHitCount())
+                .missCount(regionStatistics.getMissCount())
+                .putCount(regionStatistics.getPutCount())
+                .elementCountInMemory(regionStatistics.getElementCountInMemory())
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package ru.vspochernin.gigalearn.service;
+
+import ru.vspochernin.gigalearn.repository.projection.AnswerKeyRow;
+
+import java.util.*;
+
+/**
+ * Скомпилированный ключ ответов квиза.
+ * Идентификаторы вопросов и вариантов хранятся в отсортированных примитивных массивах,
+ * правильные варианты - битовыми масками по позициям вариантов, поэтому подсчет балла
+ * не требует обращений к БД и почти не создает объектов.
+ */
+public final class CompiledAnswerKey {
+
+    private final long version;
+    private final long[] questionIds;
+    private final long[][] optionIds;
+    private final BitSet[] correctOptions;
+    // Количество вопросов без правильных вариантов (засчитываются, если на них не ответили)
+    private final int questionsWithoutCorrectOptions;
+
+    private CompiledAnswerKey(long version, long[] questionIds, long[][] optionIds, BitSet[] correctOptions) {
+        this.version = version;
+        this.questionIds = questionIds;
+        this.optionIds = optionIds;
+        this.correctOptions = correctOptions;
+
+        int withoutCorrect = 0;
+        for (BitSet correct : correctOptions) {
+            if (correct.isEmpty()) {
+                withoutCorrect++;
+            }
+        }
+        this.questionsWithoutCorrectOptions = withoutCorrect;
+    }
+
+    public static CompiledAnswerKey compile(long version, List<AnswerKeyRow> rows) {
+        // Группируем строки по вопросам в порядке возрастания id
+        SortedMap<Long, SortedMap<Long, Boolean>> optionsByQuestion = new TreeMap<>();
+        for (AnswerKeyRow row : rows) {
+            SortedMap<Long, Boolean> options = optionsByQuestion.computeIfAbsent(row.getQuestionId(), id -> new TreeMap<>());
+            if (row.getOptionId() != null) {
+                options.put(row.getOptionId(), Boolean.TRUE.equals(row.getCorrect()));
+            }
+        }
+
+        int questionCount = optionsByQuestion.size();
+        long[] questionIds = new long[questionCount];
+        long[][] optionIds = new long[questionCount][];
+        BitSet[] correctOptions = new BitSet[questionCount];
+
+        int i = 0;
+        for (Map.Entry<Long, SortedMap<Long, Boolean>> question : optionsByQuestion.entrySet()) {
+            questionIds[i] = question.getKey();
+            optionIds[i] = new long[question.getValue().size()];
+            correctOptions[i] = new BitSet(optionIds[i].length);
+
+            int position = 0;
+            for (Map.Entry<Long, Boolean> option : question.getValue().entrySet()) {
+                optionIds[i][position] = option.getKey();
+                if (option.getValue()) {
+                    correctOptions[i].set(position);
+                }
+                position++;
+            }
+            i++;
+        }
+
+        return new CompiledAnswerKey(version, questionIds, optionIds, correctOptions);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    /**
+     * Проверяет ответы и считает балл: вопрос засчитывается, если множество выбранных
+     * вариантов ТОЧНО совпадает с множеством правильных.
+     *
+     * @throws IllegalArgumentException если вопрос не принадлежит квизу или вариант - вопросу
+     */
+    public int score(long quizId, Map<Long, List<Long>> answersByQuestion) {
+        // Валидация: все questionId из ответов должны принадлежать этому квизу
+        for (Long questionId : answersByQuestion.keySet()) {
+            if (questionId == null || Arrays.binarySearch(questionIds, questionId) < 0) {
+                throw new IllegalArgumentException(
+                        String.format("Question %d does not belong to quiz %d", questionId, quizId)
+                );
+            }
+        }
+
+        // Неотвеченные вопросы верны только если у них нет правильных вариантов
+        int correctAnswers = questionsWithoutCorrectOptions;
+        BitSet selected = new BitSet();
+        for (Map.Entry<Long, List<Long>> entry : answersByQuestion.entrySet()) {
+            int index = Arrays.binarySearch(questionIds, entry.getKey());
+
+            selected.clear();
+            for (Long optionId : entry.getValue()) {
+                int position = optionId == null ? -1 : Arrays.binarySearch(optionIds[index], optionId);
+                if (position < 0) {
+                    throw new IllegalArgumentException(
+                            String.format("Option %d does not belong to question %d", optionId, entry.getKey())
+                    );
+                }
+                selected.set(position);
+            }
+
+            if (correctOptions[index].isEmpty()) {
+                correctAnswers--;
+            }
+            if (selected.equals(correctOptions[index])) {
+                correctAnswers++;
+            }
+        }
+
+        return correctAnswers;
+    }
+}
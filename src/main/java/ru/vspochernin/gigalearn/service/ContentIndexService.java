@@ -0,0 +1,348 @@
+package ru.vspochernin.gigalearn.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.SearcherManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import ru.vspochernin.gigalearn.dto.ContentReindexResultDto;
+import ru.vspochernin.gigalearn.entity.Assignment;
+import ru.vspochernin.gigalearn.entity.Course;
+import ru.vspochernin.gigalearn.entity.Lesson;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Запись в индекс Lucene по содержимому курсов: курсы, модули, уроки и задания.
+ * <p>
+ * ContentIndexEventListener сообщает о закоммиченных изменениях сущностей, а документы применяются
+ * отдельным потоком: каждая пачка перечитывает строки из БД одним запросом на тип и либо обновляет
+ * документ, либо удаляет его, если строки больше нет. Запрос пользователя не ждет индексацию.
+ * Изменения в обход Hibernate (COPY loadgen, ручной SQL) в индекс не попадают - для них {@link #reindexAll()}.
+ */
+@Service
+@Slf4j
+public class ContentIndexService {
+
+    static final String KEY = "key";
+    static final String TYPE = "type";
+    static final String ID = "id";
+    static final String COURSE_ID = "courseId";
+    static final String TITLE = "title";
+    static final String BODY = "body";
+    // Номер полной переиндексации, записавшей документ; документы живых обновлений получают 0
+    static final String REVISION = "revision";
+
+    // Offset-ы термов хранятся в индексе: подсветка не разбирает заново длинный текст урока
+    private static final FieldType BODY_FIELD_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        BODY_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        BODY_FIELD_TYPE.freeze();
+    }
+
+    private static final int APPLY_BATCH_SIZE = 1000;
+
+    @Getter
+    public enum DocumentType {
+        COURSE(Course.class, "course", "c.id", """
+                select c.id, c.id as course_id, c.title, c.description as body
+                from course c
+                """),
+        MODULE(ru.vspochernin.gigalearn.entity.Module.class, "module", "m.id", """
+                select m.id, m.course_id, m.title, m.description as body
+                from module m
+                """),
+        LESSON(Lesson.class, "lesson", "l.id", """
+                select l.id, m.course_id, l.title, l.content as body
+                from lesson l
+                join module m on m.id = l.module_id
+                """),
+        ASSIGNMENT(Assignment.class, "assignment", "a.id", """
+                select a.id, m.course_id, a.title, a.description as body
+                from assignment a
+                join lesson l on l.id = a.lesson_id
+                join module m on m.id = l.module_id
+                """);
+
+        private final Class<?> entityClass;
+        private final String table;
+        // id основной таблицы в select (с псевдонимом) для условий where
+        private final String idColumn;
+        private final String select;
+
+        DocumentType(Class<?> entityClass, String table, String idColumn, String select) {
+            this.entityClass = entityClass;
+            this.table = table;
+            this.idColumn = idColumn;
+            this.select = select;
+        }
+
+        public static Optional<DocumentType> forEntity(Class<?> entityClass) {
+            for (DocumentType type : values()) {
+                if (type.entityClass == entityClass) {
+                    return Optional.of(type);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private record Change(DocumentType type, long id) {
+    }
+
+    private record Row(DocumentType type, long id, long courseId, String title, String body) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+    private final int reindexThreads;
+    private final int reindexChunkSize;
+
+    private final ConcurrentLinkedQueue<Change> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ExecutorService applier = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("content-index-applier")
+            .daemon(true)
+            .factory());
+    // Одна запись в индекс за раз: живые пачки не вклиниваются в полную переиндексацию
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long lastRevision;
+
+    public ContentIndexService(JdbcTemplate jdbcTemplate,
+                               IndexWriter contentIndexWriter,
+                               SearcherManager contentSearcherManager,
+                               @Value("${gigalearn.content-index.reindex-threads:0}") int reindexThreads,
+                               @Value("${gigalearn.content-index.reindex-chunk-size:2000}") int reindexChunkSize) {
+        if (reindexThreads < 0 || reindexChunkSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid content index settings: reindex-threads=%d, reindex-chunk-size=%d",
+                    reindexThreads, reindexChunkSize));
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexWriter = contentIndexWriter;
+        this.searcherManager = contentSearcherManager;
+        this.reindexThreads = reindexThreads == 0 ? Runtime.getRuntime().availableProcessors() : reindexThreads;
+        this.reindexChunkSize = reindexChunkSize;
+    }
+
+    /**
+     * Ставит сущность в очередь на переиндексацию. Вызывается после коммита транзакции.
+     */
+    public void enqueue(DocumentType type, long id) {
+        pending.add(new Change(type, id));
+        if (drainScheduled.compareAndSet(false, true)) {
+            applier.execute(() -> {
+                drainScheduled.set(false);
+                drainQuietly();
+            });
+        }
+    }
+
+    /**
+     * Синхронно применяет все изменения из очереди; после возврата они видны поиску.
+     */
+    public void flush() {
+        drain();
+    }
+
+    /**
+     * Полная переиндексация из БД. Диапазоны id каждого типа читаются параллельно
+     * ({@code reindex-threads} потоков, по умолчанию по числу ядер). Документы заменяются на месте,
+     * поэтому поиск работает все время переиндексации; документы удаленных строк снимаются в конце.
+     */
+    public ContentReindexResultDto reindexAll() {
+        long started = System.nanoTime();
+        writeLock.lock();
+        try (ExecutorService pool = Executors.newFixedThreadPool(reindexThreads)) {
+            long revision = Math.max(System.currentTimeMillis(), lastRevision + 1);
+            lastRevision = revision;
+
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (DocumentType type : DocumentType.values()) {
+                Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                        "select min(id) as min_id, max(id) as max_id from " + type.getTable());
+                if (bounds.get("min_id") == null) {
+                    continue;
+                }
+                long maxId = ((Number) bounds.get("max_id")).longValue();
+                for (long from = ((Number) bounds.get("min_id")).longValue(); from <= maxId; from += reindexChunkSize) {
+                    long to = Math.min(from + reindexChunkSize - 1, maxId);
+                    long fromId = from;
+                    tasks.add(() -> indexRange(type, fromId, to, revision));
+                }
+            }
+
+            long documents = 0;
+            for (Future<Integer> task : pool.invokeAll(tasks)) {
+                documents += task.get();
+            }
+
+            // Все живые строки перезаписаны с новой ревизией - остальное устарело
+            indexWriter.deleteDocuments(LongPoint.newRangeQuery(REVISION, Long.MIN_VALUE, revision - 1));
+            commitAndRefresh();
+
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            log.info("Индекс содержимого перестроен: {} документов за {} мс ({} потоков)",
+                    documents, millis, reindexThreads);
+            return ContentReindexResultDto.builder()
+                    .documents(documents)
+                    .durationMillis(millis)
+                    .threads(reindexThreads)
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Content reindex interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Content reindex failed", e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        applier.shutdown();
+        // Остаток очереди применяем до закрытия IndexWriter
+        drainQuietly();
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Индекс отстанет до следующего изменения этих сущностей или до полной переиндексации
+            log.error("Не удалось обновить индекс содержимого", e);
+        }
+    }
+
+    private void drain() {
+        writeLock.lock();
+        try {
+            List<Change> batch = new ArrayList<>();
+            Change change;
+            while ((change = pending.poll()) != null) {
+                batch.add(change);
+                if (batch.size() == APPLY_BATCH_SIZE) {
+                    apply(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                apply(batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(List<Change> batch) throws IOException {
+        Map<DocumentType, Set<Long>> idsByType = new EnumMap<>(DocumentType.class);
+        for (Change change : batch) {
+            idsByType.computeIfAbsent(change.type(), type -> new LinkedHashSet<>()).add(change.id());
+        }
+
+        for (Map.Entry<DocumentType, Set<Long>> entry : idsByType.entrySet()) {
+            DocumentType type = entry.getKey();
+            Set<Long> missing = new HashSet<>(entry.getValue());
+            for (Row row : loadByIds(type, entry.getValue())) {
+                indexWriter.updateDocument(keyTerm(type, row.id()), toDocument(row, 0L));
+                missing.remove(row.id());
+            }
+            // Строки нет - сущность удалена
+            for (Long id : missing) {
+                indexWriter.deleteDocuments(keyTerm(type, id));
+            }
+        }
+        commitAndRefresh();
+    }
+
+    private int indexRange(DocumentType type, long fromId, long toId, long revision) throws IOException {
+        List<Row> rows = jdbcTemplate.query(
+                type.getSelect() + " where " + type.getIdColumn() + " between ? and ?",
+                (rs, rowNum) -> toRow(type, rs), fromId, toId);
+        for (Row row : rows) {
+            indexWriter.updateDocument(keyTerm(type, row.id()), toDocument(row, revision));
+        }
+        return rows.size();
+    }
+
+    private List<Row> loadByIds(DocumentType type, Set<Long> ids) {
+        return jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            type.getSelect() + " where " + type.getIdColumn() + " = any(?)");
+                    Array array = connection.createArrayOf("bigint", ids.toArray(new Long[0]));
+                    statement.setArray(1, array);
+                    return statement;
+                },
+                (rs, rowNum) -> toRow(type, rs));
+    }
+
+    private void commitAndRefresh() throws IOException {
+        indexWriter.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    private static Row toRow(DocumentType type, ResultSet rs) throws SQLException {
+        return new Row(type, rs.getLong("id"), rs.getLong("course_id"), rs.getString("title"), rs.getString("body"));
+    }
+
+    private static Term keyTerm(DocumentType type, long id) {
+        return new Term(KEY, key(type, id));
+    }
+
+    private static String key(DocumentType type, long id) {
+        return type.name() + ":" + id;
+    }
+
+    private static Document toDocument(Row row, long revision) {
+        Document document = new Document();
+        document.add(new StringField(KEY, key(row.type(), row.id()), Field.Store.NO));
+        document.add(new StringField(TYPE, row.type().name(), Field.Store.YES));
+        document.add(new StoredField(ID, row.id()));
+        document.add(new StoredField(COURSE_ID, row.courseId()));
+        document.add(new LongPoint(REVISION, revision));
+        document.add(new TextField(TITLE, row.title(), Field.Store.YES));
+        document.add(new Field(BODY, row.body() == null ? "" : row.body(), BODY_FIELD_TYPE));
+        return document;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.vspochernin.gigalearn.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.springframework.stereotype.Service;
+import ru.vspochernin.gigalearn.dto.ContentSearchHitDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поиск по индексу содержимого курсов (ContentIndexService): названия и тексты курсов, модулей,
+ * уроков и заданий. Совпадение в названии весит вдвое больше, чем в тексте.
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentSearchService {
+
+    static final int MAX_LIMIT = 100;
+    static final int MAX_QUERY_LENGTH = 200;
+    // Длина фрагмента подсветки, если совпадений в тексте нет (нашлось только по названию)
+    private static final int FALLBACK_SNIPPET_LENGTH = 200;
+
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            ContentIndexService.TITLE, 2.0f,
+            ContentIndexService.BODY, 1.0f);
+
+    private final SearcherManager contentSearcherManager;
+    private final Analyzer contentIndexAnalyzer;
+
+    public List<ContentSearchHitDto> search(String queryText, int limit) {
+        if (queryText == null || queryText.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        if (queryText.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        Query query = parse(queryText);
+        try {
+            IndexSearcher searcher = contentSearcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, limit);
+                String[] snippets = UnifiedHighlighter.builder(searcher, contentIndexAnalyzer)
+                        .build()
+                        .highlight(ContentIndexService.BODY, query, topDocs, 1);
+
+                StoredFields storedFields = searcher.storedFields();
+                List<ContentSearchHitDto> hits = new ArrayList<>(topDocs.scoreDocs.length);
+                for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                    Document document = storedFields.document(scoreDoc.doc);
+                    hits.add(ContentSearchHitDto.builder()
+                            .type(document.get(ContentIndexService.TYPE))
+                            .id(document.getField(ContentIndexService.ID).numericValue().longValue())
+                            .courseId(document.getField(ContentIndexService.COURSE_ID).numericValue().longValue())
+                            .title(document.get(ContentIndexService.TITLE))
+                            .snippet(snippets[i] != null ? snippets[i] : fallbackSnippet(document))
+                            .score(scoreDoc.score)
+                            .build());
+                }
+                return hits;
+            } finally {
+                contentSearcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Синтаксис классического QueryParser: "фраза", AND/OR/NOT, title:слово, префикс*
+    private Query parse(String queryText) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+                FIELD_BOOSTS.keySet().toArray(new String[0]), contentIndexAnalyzer, FIELD_BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(queryText);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query: " + queryText);
+        }
+    }
+
+    private static String fallbackSnippet(Document document) {
+        String body = document.get(ContentIndexService.BODY);
+        if (body == null || body.length() <= FALLBACK_SNIPPET_LENGTH) {
+            return body;
+        }
+        return body.substring(0, FALLBACK_SNIPPET_LENGTH) + "...";
+    }
+}
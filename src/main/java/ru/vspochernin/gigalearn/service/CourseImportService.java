@@ -0,0 +1,368 @@
+package ru.vspochernin.gigalearn.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.vspochernin.gigalearn.dto.*;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.repository.CategoryRepository;
+import ru.vspochernin.gigalearn.repository.CourseRepository;
+import ru.vspochernin.gigalearn.repository.TagRepository;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class CourseImportService {
+
+    private final CourseRepository courseRepository;
+    private final CategoryRepository categoryRepository;
+    private final UserRepository userRepository;
+    private final TagRepository tagRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    // Сколько сущностей накапливать в контексте персистентности перед flush + clear
+    @Value("${gigalearn.import.chunk-size:50}")
+    private int chunkSize;
+
+    /**
+     * Импортирует курс целиком (модули, уроки, задания, квизы, вопросы, варианты) в одной транзакции.
+     * Граф сущностей сохраняется каскадом от курса, поэтому INSERT-ы уходят в БД пакетами
+     * (hibernate.jdbc.batch_size), а не по одному запросу на строку.
+     */
+    @Transactional
+    public CourseImportResultDto importCourse(CourseImportDto dto) {
+        Course course = createCourse(dto);
+        ImportCounters counters = new ImportCounters();
+
+        if (dto.getModules() != null) {
+            for (ModuleImportDto moduleDto : dto.getModules()) {
+                addModule(course, moduleDto, counters);
+            }
+        }
+
+        Course saved = courseRepository.save(course);
+        return counters.toResult(saved.getId());
+    }
+
+    /**
+     * Потоковый импорт того же JSON-документа, что и {@link #importCourse(CourseImportDto)}.
+     * Документ читается через {@link JsonParser}: в памяти одновременно находится не больше одного
+     * урока или квиза, а сущности сбрасываются в БД порциями по {@code chunkSize} с очисткой
+     * контекста персистентности, поэтому потребление памяти не зависит от размера документа.
+     * Скалярные поля курса и модуля должны идти до вложенных массивов (modules, lessons, quiz).
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public CourseImportResultDto importCourse(InputStream json) throws IOException {
+        ChunkedImport chunkedImport = new ChunkedImport();
+        Long courseId = null;
+
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            expectToken(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            ObjectNode courseFields = objectMapper.createObjectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("modules".equals(field)) {
+                    if (courseId != null) {
+                        throw new IllegalArgumentException("Duplicate field 'modules' in course document");
+                    }
+                    courseId = chunkedImport.persistCourse(courseFields);
+                    if (value == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    expectToken(parser, value, JsonToken.START_ARRAY);
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        chunkedImport.importModule(parser, courseId);
+                    }
+                } else {
+                    if (courseId != null) {
+                        throw new IllegalArgumentException("Course field '" + field + "' must precede modules");
+                    }
+                    courseFields.set(field, parser.readValueAsTree());
+                }
+            }
+
+            if (courseId == null) {
+                courseId = chunkedImport.persistCourse(courseFields);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed course document: " + e.getOriginalMessage());
+        }
+
+        return chunkedImport.counters.toResult(courseId);
+    }
+
+    private Course createCourse(CourseImportDto dto) {
+        Category category = categoryRepository.findById(dto.getCategoryId())
+                .orElseThrow(() -> new IllegalArgumentException("Category not found: " + dto.getCategoryId()));
+
+        User teacher = userRepository.findById(dto.getTeacherId())
+                .orElseThrow(() -> new IllegalArgumentException("Teacher not found: " + dto.getTeacherId()));
+
+        // Все теги загружаем одним запросом
+        Set<Tag> tags = new HashSet<>();
+        if (dto.getTagIds() != null && !dto.getTagIds().isEmpty()) {
+            List<Tag> found = tagRepository.findAllById(dto.getTagIds());
+            if (found.size() != dto.getTagIds().size()) {
+                Set<Long> missing = new HashSet<>(dto.getTagIds());
+                found.forEach(tag -> missing.remove(tag.getId()));
+                throw new IllegalArgumentException("Tag not found: " + missing.iterator().next());
+            }
+            tags.addAll(found);
+        }
+
+        return Course.builder()
+                .title(dto.getTitle())
+                .description(dto.getDescription())
+                .duration(dto.getDuration())
+                .startDate(dto.getStartDate())
+                .category(category)
+                .teacher(teacher)
+                .tags(tags)
+                .build();
+    }
+
+    private ru.vspochernin.gigalearn.entity.Module addModule(Course course, ModuleImportDto dto, ImportCounters counters) {
+        ru.vspochernin.gigalearn.entity.Module module = ru.vspochernin.gigalearn.entity.Module.builder()
+                .title(dto.getTitle())
+                .description(dto.getDescription())
+                .orderIndex(dto.getOrderIndex())
+                .course(course)
+                .build();
+        course.getModules().add(module);
+        counters.modules++;
+
+        if (dto.getLessons() != null) {
+            for (LessonImportDto lessonDto : dto.getLessons()) {
+                module.getLessons().add(buildLesson(module, lessonDto, counters));
+            }
+        }
+
+        if (dto.getQuiz() != null) {
+            module.setQuiz(buildQuiz(module, dto.getQuiz(), counters));
+        }
+
+        return module;
+    }
+
+    // Урок вместе с заданиями; в коллекцию модуля не добавляется - это решает вызывающий код
+    private Lesson buildLesson(ru.vspochernin.gigalearn.entity.Module module, LessonImportDto dto, ImportCounters counters) {
+        Lesson lesson = Lesson.builder()
+                .title(dto.getTitle())
+                .content(dto.getContent())
+                .videoUrl(dto.getVideoUrl())
+                .module(module)
+                .build();
+        counters.lessons++;
+
+        if (dto.getAssignments() != null) {
+            for (AssignmentCreateDto assignmentDto : dto.getAssignments()) {
+                lesson.getAssignments().add(Assignment.builder()
+                        .title(assignmentDto.getTitle())
+                        .description(assignmentDto.getDescription())
+                        .maxScore(assignmentDto.getMaxScore())
+                        .lesson(lesson)
+                        .build());
+                counters.assignments++;
+            }
+        }
+
+        return lesson;
+    }
+
+    // Квиз вместе с вопросами и вариантами; модулю не присваивается - это решает вызывающий код
+    private Quiz buildQuiz(ru.vspochernin.gigalearn.entity.Module module, QuizImportDto dto, ImportCounters counters) {
+        Quiz quiz = Quiz.builder()
+                .title(dto.getTitle())
+                .timeLimit(dto.getTimeLimitSeconds())
+                .module(module)
+                .build();
+        counters.quizzes++;
+
+        if (dto.getQuestions() != null) {
+            for (QuestionImportDto questionDto : dto.getQuestions()) {
+                Question question = Question.builder()
+                        .text(questionDto.getText())
+                        .quiz(quiz)
+                        .build();
+                quiz.getQuestions().add(question);
+                counters.questions++;
+
+                if (questionDto.getOptions() != null) {
+                    for (AnswerOptionCreateDto optionDto : questionDto.getOptions()) {
+                        question.getAnswerOptions().add(AnswerOption.builder()
+                                .text(optionDto.getText())
+                                .isCorrect(optionDto.getIsCorrect())
+                                .question(question)
+                                .build());
+                        counters.answerOptions++;
+                    }
+                }
+            }
+        }
+
+        return quiz;
+    }
+
+    private void expectToken(JsonParser parser, JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException(String.format(
+                    "Malformed course document: expected %s but got %s at line %d",
+                    expected, actual, parser.currentLocation().getLineNr()
+            ));
+        }
+    }
+
+    private void validate(Object dto) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            String details = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            throw new IllegalArgumentException("Validation failed: " + details);
+        }
+    }
+
+    // Состояние потокового импорта: родители держатся только по id, т.к. контекст периодически очищается
+    private class ChunkedImport {
+        private final ImportCounters counters = new ImportCounters();
+        private int pending;
+
+        Long persistCourse(ObjectNode courseFields) throws JsonProcessingException {
+            CourseImportDto dto = objectMapper.treeToValue(courseFields, CourseImportDto.class);
+            validate(dto);
+
+            Course course = createCourse(dto);
+            persist(course, 1);
+            return course.getId();
+        }
+
+        void importModule(JsonParser parser, Long courseId) throws IOException {
+            ObjectNode moduleFields = objectMapper.createObjectNode();
+            Long moduleId = null;
+            boolean quizImported = false;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("lessons".equals(field) || "quiz".equals(field)) {
+                    if (moduleId == null) {
+                        moduleId = persistModule(moduleFields, courseId);
+                    }
+                    if (value == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+
+                    if ("lessons".equals(field)) {
+                        expectToken(parser, value, JsonToken.START_ARRAY);
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            LessonImportDto lessonDto = parser.readValueAs(LessonImportDto.class);
+                            validate(lessonDto);
+                            int before = counters.total();
+                            Lesson lesson = buildLesson(moduleReference(moduleId), lessonDto, counters);
+                            persist(lesson, counters.total() - before);
+                        }
+                    } else {
+                        if (quizImported) {
+                            throw new IllegalArgumentException("Module can have only one quiz");
+                        }
+                        expectToken(parser, value, JsonToken.START_OBJECT);
+                        QuizImportDto quizDto = parser.readValueAs(QuizImportDto.class);
+                        validate(quizDto);
+                        int before = counters.total();
+                        Quiz quiz = buildQuiz(moduleReference(moduleId), quizDto, counters);
+                        persist(quiz, counters.total() - before);
+                        quizImported = true;
+                    }
+                } else {
+                    if (moduleId != null) {
+                        throw new IllegalArgumentException("Module field '" + field + "' must precede lessons and quiz");
+                    }
+                    moduleFields.set(field, parser.readValueAsTree());
+                }
+            }
+
+            if (moduleId == null) {
+                persistModule(moduleFields, courseId);
+            }
+        }
+
+        private Long persistModule(ObjectNode moduleFields, Long courseId) throws JsonProcessingException {
+            ModuleImportDto dto = objectMapper.treeToValue(moduleFields, ModuleImportDto.class);
+            validate(dto);
+
+            ru.vspochernin.gigalearn.entity.Module module = ru.vspochernin.gigalearn.entity.Module.builder()
+                    .title(dto.getTitle())
+                    .description(dto.getDescription())
+                    .orderIndex(dto.getOrderIndex())
+                    .course(entityManager.getReference(Course.class, courseId))
+                    .build();
+            counters.modules++;
+            persist(module, 1);
+            return module.getId();
+        }
+
+        private ru.vspochernin.gigalearn.entity.Module moduleReference(Long moduleId) {
+            return entityManager.getReference(ru.vspochernin.gigalearn.entity.Module.class, moduleId);
+        }
+
+        // Сохраняет сущность (с каскадом на дочерние) и при накоплении порции сбрасывает контекст
+        private void persist(Object entity, int entityCount) {
+            entityManager.persist(entity);
+            pending += entityCount;
+            if (pending >= chunkSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+    }
+
+    // Счетчики созданных сущностей для ответа
+    private static class ImportCounters {
+        int modules;
+        int lessons;
+        int assignments;
+        int quizzes;
+        int questions;
+        int answerOptions;
+
+        int total() {
+            return modules + lessons + assignments + quizzes + questions + answerOptions;
+        }
+
+        CourseImportResultDto toResult(Long courseId) {
+            return CourseImportResultDto.builder()
+                    .courseId(courseId)
+                    .modules(modules)
+                    .lessons(lessons)
+                    .assignments(assignments)
+                    .quizzes(quizzes)
+                    .questions(questions)
+                    .answerOptions(answerOptions)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.vspochernin.gigalearn.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.vspochernin.gigalearn.dto.CourseRatingDto;
+import ru.vspochernin.gigalearn.entity.Course;
+import ru.vspochernin.gigalearn.entity.CourseRating;
+import ru.vspochernin.gigalearn.entity.CourseReview;
+import ru.vspochernin.gigalearn.entity.User;
+import ru.vspochernin.gigalearn.repository.CourseRatingRepository;
+import ru.vspochernin.gigalearn.repository.CourseRepository;
+import ru.vspochernin.gigalearn.repository.CourseReviewRepository;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class CourseReviewService {
+
+    private final CourseReviewRepository courseReviewRepository;
+    private final CourseRatingRepository courseRatingRepository;
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+
+    @Transactional
+    public long addReview(long courseId, long studentId, int rating, String comment) {
+        validateRating(rating);
+
+        // Проверяем существование курса
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found: " + courseId));
+
+        // Проверяем существование студента
+        User student = userRepository.findById(studentId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
+
+        CourseReview review = courseReviewRepository.save(CourseReview.builder()
+                .course(course)
+                .student(student)
+                .rating(rating)
+                .comment(comment)
+                .createdAt(OffsetDateTime.now())
+                .build());
+
+        // Агрегат меняется в той же транзакции, что и отзыв
+        courseRatingRepository.applyRating(courseId, rating, 1);
+        return review.getId();
+    }
+
+    @Transactional
+    public void deleteReview(long courseId, long reviewId) {
+        CourseReview review = courseReviewRepository.findById(reviewId)
+                .filter(r -> r.getCourse().getId() == courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
+
+        courseReviewRepository.delete(review);
+        if (review.getRating() != null) {
+            courseRatingRepository.applyRating(courseId, review.getRating(), -1);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CourseRatingDto getRating(long courseId) {
+        return toDto(courseRatingRepository.findById(courseId).orElse(null));
+    }
+
+    /**
+     * Агрегаты для списка курсов одним запросом; курсы без отзывов получают пустой рейтинг.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, CourseRatingDto> getRatings(Collection<Long> courseIds) {
+        Map<Long, CourseRating> found = new HashMap<>();
+        if (!courseIds.isEmpty()) {
+            for (CourseRating rating : courseRatingRepository.findByCourseIdIn(courseIds)) {
+                found.put(rating.getCourseId(), rating);
+            }
+        }
+
+        Map<Long, CourseRatingDto> result = new HashMap<>();
+        for (Long courseId : courseIds) {
+            result.put(courseId, toDto(found.get(courseId)));
+        }
+        return result;
+    }
+
+    private static CourseRatingDto toDto(CourseRating rating) {
+        Map<Integer, Long> stars = new LinkedHashMap<>();
+        stars.put(1, rating == null ? 0 : rating.getStars1());
+        stars.put(2, rating == null ? 0 : rating.getStars2());
+        stars.put(3, rating == null ? 0 : rating.getStars3());
+        stars.put(4, rating == null ? 0 : rating.getStars4());
+        stars.put(5, rating == null ? 0 : rating.getStars5());
+
+        long count = rating == null ? 0 : rating.getReviewCount();
+        return CourseRatingDto.builder()
+                .reviewCount(count)
+                .average(count == 0 ? null : (double) rating.getRatingSum() / count)
+                .stars(stars)
+                .build();
+    }
+
+    private static void validateRating(int rating) {
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.vspochernin.gigalearn.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.vspochernin.gigalearn.dto.CourseSearchResponseDto;
+import ru.vspochernin.gigalearn.repository.CourseRepository;
+import ru.vspochernin.gigalearn.repository.projection.CourseSearchHit;
+
+import java.util.List;
+
+/**
+ * Полнотекстовый поиск по каталогу: название, описание, категория и теги курса (миграция V5).
+ * Выдача упорядочена по рангу, листается keyset-токеном (ранг, id); сущности Course не загружаются.
+ */
+@Service
+@RequiredArgsConstructor
+public class CourseSearchService {
+
+    static final int MAX_QUERY_LENGTH = 200;
+    static final int FACET_LIMIT = 20;
+
+    private final CourseRepository courseRepository;
+
+    @Transactional(readOnly = true)
+    public CourseSearchResponseDto search(String query, Long categoryId, Long tagId, String pageToken, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        PageTokens.validatePageSize(size);
+        PageTokens.RankCursor cursor = PageTokens.decodeRank(pageToken);
+
+        // Выборка размером size + 1: лишний элемент означает, что есть следующая страница
+        List<CourseSearchHit> rows = courseRepository.search(
+                query, categoryId, tagId, cursor.rank(), cursor.id(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<CourseSearchHit> items = hasNext ? rows.subList(0, size) : rows;
+        CourseSearchHit last = hasNext ? items.get(size - 1) : null;
+
+        CourseSearchResponseDto.CourseSearchResponseDtoBuilder response = CourseSearchResponseDto.builder()
+                .items(items)
+                .nextPageToken(last == null ? null : PageTokens.encodeRank(last.rank(), last.id()));
+
+        // Фасеты не зависят от страницы - считаем их один раз, при первом запросе
+        if (pageToken == null || pageToken.isBlank()) {
+            response.categoryFacets(courseRepository.countSearchHitsByCategory(query, categoryId, tagId, FACET_LIMIT))
+                    .tagFacets(courseRepository.countSearchHitsByTag(query, categoryId, tagId, FACET_LIMIT));
+        }
+        return response.build();
+    }
+}
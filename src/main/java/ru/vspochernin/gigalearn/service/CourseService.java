@@ -1,17 +1,25 @@
 package ru.vspochernin.gigalearn.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.vspochernin.gigalearn.dto.CourseRatingDto;
+import ru.vspochernin.gigalearn.dto.CourseResponseDto;
+import ru.vspochernin.gigalearn.dto.PageResponseDto;
 import ru.vspochernin.gigalearn.entity.Category;
 import ru.vspochernin.gigalearn.entity.Course;
+import ru.vspochernin.gigalearn.entity.Tag;
 import ru.vspochernin.gigalearn.entity.User;
 import ru.vspochernin.gigalearn.repository.CategoryRepository;
 import ru.vspochernin.gigalearn.repository.CourseRepository;
+import ru.vspochernin.gigalearn.repository.LessonRepository;
 import ru.vspochernin.gigalearn.repository.ModuleRepository;
 import ru.vspochernin.gigalearn.repository.UserRepository;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -19,8 +27,10 @@ public class CourseService {
 
     private final CourseRepository courseRepository;
     private final ModuleRepository moduleRepository;
+    private final LessonRepository lessonRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
+    private final CourseReviewService courseReviewService;
 
     @Transactional
     public Course createCourse(String title, String description, Long categoryId, Long teacherId,
@@ -90,22 +100,19 @@ public class CourseService {
 
     @Transactional(readOnly = true)
     public Course getCourseWithContent(Long id) {
-        // Используем JOIN FETCH для загрузки курса с модулями и уроками
-        return courseRepository.findById(id)
-                .map(course -> {
-                    // Инициализируем ленивые коллекции и связи внутри транзакции
-                    course.getModules().size();
-                    course.getModules().forEach(module -> module.getLessons().size());
-
-                    // Инициализируем базовые связи для использования в контроллере
-                    course.getCategory().getName();
-                    course.getTeacher().getName();
-                    course.getTags().size();
-                    course.getTags().forEach(tag -> tag.getName());
-
-                    return course;
-                })
+        // Несколько bag-коллекций нельзя выбрать одним JOIN FETCH (MultipleBagFetchException),
+        // поэтому дерево собирается фиксированным числом запросов - по одному на уровень.
+        // Все запросы работают в одном контексте персистентности и дозаполняют одни и те же сущности
+        Course course = courseRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Course not found: " + id));
+
+        // Сначала модули с уроками и квизами, затем коллекция modules курса:
+        // модули к этому моменту уже в контексте, и квизы не догружаются по одному
+        moduleRepository.findWithLessonsAndQuizByCourseId(id);
+        courseRepository.findWithModulesById(id);
+        lessonRepository.findWithAssignmentsByCourseId(id);
+
+        return course;
     }
 
     @Transactional(readOnly = true)
@@ -113,5 +120,36 @@ public class CourseService {
         return courseRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Course not found: " + id));
     }
-}
 
+    /**
+     * Страница каталога: не больше трех запросов независимо от размера страницы -
+     * курсы с категорией и преподавателем, их теги и агрегаты оценок из course_rating.
+     */
+    @Transactional(readOnly = true)
+    public PageResponseDto<CourseResponseDto> getCatalogPage(String pageToken, int size) {
+        PageTokens.validatePageSize(size);
+        long afterId = PageTokens.decode(pageToken);
+
+        List<Course> rows = courseRepository.findPage(afterId, Limit.of(size + 1));
+        List<Long> ids = rows.stream().map(Course::getId).toList();
+        if (!ids.isEmpty()) {
+            // Курсы уже в контексте персистентности: запрос только инициализирует их коллекции tags
+            courseRepository.findWithTagsByIdIn(ids);
+        }
+        Map<Long, CourseRatingDto> ratings = courseReviewService.getRatings(ids);
+
+        return PageTokens.toPage(rows, size, Course::getId, course -> CourseResponseDto.builder()
+                .id(course.getId())
+                .title(course.getTitle())
+                .description(course.getDescription())
+                .duration(course.getDuration())
+                .startDate(course.getStartDate())
+                .categoryName(course.getCategory().getName())
+                .teacherName(course.getTeacher().getName())
+                .tagNames(course.getTags().stream()
+                        .map(Tag::getName)
+                        .toList())
+                .rating(ratings.get(course.getId()))
+                .build());
+    }
+}
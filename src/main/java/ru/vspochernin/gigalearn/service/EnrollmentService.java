@@ -1,19 +1,27 @@
 package ru.vspochernin.gigalearn.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.vspochernin.gigalearn.entity.Course;
+import org.springframework.data.domain.Limit;
+import ru.vspochernin.gigalearn.config.MetricBucket;
+import ru.vspochernin.gigalearn.dto.BulkEnrollmentResultDto;
+import ru.vspochernin.gigalearn.dto.EnrollmentResponseDto;
+import ru.vspochernin.gigalearn.dto.PageResponseDto;
 import ru.vspochernin.gigalearn.entity.Enrollment;
-import ru.vspochernin.gigalearn.entity.User;
 import ru.vspochernin.gigalearn.exception.DuplicateEnrollmentException;
 import ru.vspochernin.gigalearn.repository.CourseRepository;
 import ru.vspochernin.gigalearn.repository.EnrollmentRepository;
 import ru.vspochernin.gigalearn.repository.UserRepository;
+import ru.vspochernin.gigalearn.repository.projection.CourseSummary;
+import ru.vspochernin.gigalearn.repository.projection.StudentSummary;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -24,40 +32,54 @@ public class EnrollmentService {
     private final UserRepository userRepository;
 
     @Transactional
-    public long enrollStudent(long courseId, long studentId) {
+    public long enrollStudent(@MetricBucket long courseId, long studentId) {
         // Проверяем существование курса
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found: " + courseId));
+        if (!courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found: " + courseId);
+        }
 
         // Проверяем существование студента
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
-
-        // Проверяем, не записан ли студент уже на этот курс
-        if (enrollmentRepository.findByUserIdAndCourseId(studentId, courseId).isPresent()) {
-            throw new DuplicateEnrollmentException(
-                    String.format("Student %d is already enrolled in course %d", studentId, courseId)
-            );
+        if (!userRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("User not found: " + studentId);
         }
 
-        // Создаем новую запись
-        Enrollment enrollment = Enrollment.builder()
-                .user(student)
-                .course(course)
-                .enrollDate(LocalDate.now())
-                .status("Active")
-                .build();
+        // Повторную запись, в том числе при гонке параллельных запросов, отсекает ON CONFLICT DO NOTHING:
+        // без предварительного SELECT-а и без DataIntegrityViolationException
+        return enrollmentRepository.insertIfAbsent(courseId, studentId, LocalDate.now(), "Active")
+                .orElseThrow(() -> new DuplicateEnrollmentException(
+                        String.format("Student %d is already enrolled in course %d", studentId, courseId)
+                ));
+    }
 
-        try {
-            Enrollment saved = enrollmentRepository.save(enrollment);
-            return saved.getId();
-        } catch (DataIntegrityViolationException e) {
-            // На случай race condition - если между проверкой и сохранением успели записать
-            throw new DuplicateEnrollmentException(
-                    String.format("Student %d is already enrolled in course %d", studentId, courseId),
-                    e
-            );
+    @Transactional
+    public BulkEnrollmentResultDto enrollStudents(long courseId, List<Long> studentIds) {
+        // Проверяем существование курса
+        if (!courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found: " + courseId);
         }
+
+        // Повторы в запросе считаем один раз
+        List<Long> uniqueIds = new ArrayList<>(new LinkedHashSet<>(studentIds));
+
+        // Проверяем существование всех студентов одним IN-запросом
+        Set<Long> existingIds = new HashSet<>(userRepository.findExistingIds(uniqueIds));
+        if (existingIds.size() != uniqueIds.size()) {
+            List<Long> missingIds = uniqueIds.stream()
+                    .filter(id -> !existingIds.contains(id))
+                    .limit(10)
+                    .toList();
+            throw new IllegalArgumentException("Users not found: " + missingIds);
+        }
+
+        // Уже записанных студентов отсекает ON CONFLICT DO NOTHING, без предварительных SELECT-ов
+        int inserted = enrollmentRepository.insertIgnoringDuplicates(courseId, uniqueIds, LocalDate.now(), "Active");
+
+        return BulkEnrollmentResultDto.builder()
+                .courseId(courseId)
+                .requested(uniqueIds.size())
+                .inserted(inserted)
+                .alreadyEnrolled(uniqueIds.size() - inserted)
+                .build();
     }
 
     @Transactional
@@ -72,45 +94,47 @@ public class EnrollmentService {
     }
 
     @Transactional(readOnly = true)
-    public List<Course> getCoursesForStudent(long studentId) {
+    public List<CourseSummary> getCoursesForStudent(long studentId) {
         // Проверяем существование студента
         if (!userRepository.existsById(studentId)) {
             throw new IllegalArgumentException("User not found: " + studentId);
         }
 
-        // Получаем все записи студента и извлекаем курсы
-        // Инициализируем базовые поля курса внутри транзакции
-        return enrollmentRepository.findByUserId(studentId).stream()
-                .map(enrollment -> {
-                    Course course = enrollment.getCourse();
-                    // Инициализируем основные поля для использования вне транзакции
-                    course.getId();
-                    course.getTitle();
-                    course.getDescription();
-                    return course;
-                })
-                .toList();
+        // Один запрос с проекцией: сущности курсов в контекст персистентности не попадают
+        return enrollmentRepository.findCourseSummariesByUserId(studentId);
     }
 
     @Transactional(readOnly = true)
-    public List<User> getStudentsForCourse(long courseId) {
+    public PageResponseDto<EnrollmentResponseDto> getEnrollmentsPage(long courseId, String pageToken, int size) {
+        PageTokens.validatePageSize(size);
+        long afterId = PageTokens.decode(pageToken);
+
         // Проверяем существование курса
         if (!courseRepository.existsById(courseId)) {
             throw new IllegalArgumentException("Course not found: " + courseId);
         }
 
-        // Получаем все записи курса и извлекаем студентов
-        // Инициализируем базовые поля пользователя внутри транзакции
-        return enrollmentRepository.findByCourseId(courseId).stream()
-                .map(enrollment -> {
-                    User user = enrollment.getUser();
-                    // Инициализируем основные поля для использования вне транзакции
-                    user.getId();
-                    user.getName();
-                    user.getEmail();
-                    return user;
-                })
-                .toList();
+        List<Enrollment> rows = enrollmentRepository.findPageByCourseId(courseId, afterId, Limit.of(size + 1));
+        return PageTokens.toPage(rows, size, Enrollment::getId, enrollment -> EnrollmentResponseDto.builder()
+                .id(enrollment.getId())
+                .studentId(enrollment.getUser().getId())
+                .studentName(enrollment.getUser().getName())
+                .courseId(enrollment.getCourse().getId())
+                .courseTitle(enrollment.getCourse().getTitle())
+                .enrollDate(enrollment.getEnrollDate())
+                .status(enrollment.getStatus())
+                .build());
+    }
+
+    @Transactional(readOnly = true)
+    public List<StudentSummary> getStudentsForCourse(long courseId) {
+        // Проверяем существование курса
+        if (!courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found: " + courseId);
+        }
+
+        // Один запрос с проекцией: сущности пользователей в контекст персистентности не попадают
+        return enrollmentRepository.findStudentSummariesByCourseId(courseId);
     }
 }
 
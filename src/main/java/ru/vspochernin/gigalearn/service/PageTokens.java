@@ -0,0 +1,99 @@
+package ru.vspochernin.gigalearn.service;
+
+import ru.vspochernin.gigalearn.dto.PageResponseDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keyset-пагинация по id: токен страницы - закодированный id последнего элемента предыдущей страницы.
+ * Следующая страница выбирается условием {@code id > lastId ORDER BY id LIMIT size}, поэтому ее стоимость
+ * не зависит от того, насколько далеко клиент пролистал список.
+ */
+final class PageTokens {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final String PREFIX = "id:";
+    private static final String RANK_PREFIX = "rank:";
+
+    private PageTokens() {
+    }
+
+    static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Пустой токен - первая страница
+    static long decode(String token) {
+        if (token == null || token.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException и ошибки Base64 - тоже IllegalArgumentException
+            throw new IllegalArgumentException("Invalid page token");
+        }
+    }
+
+    /**
+     * Позиция в выдаче, упорядоченной по убыванию ранга и возрастанию id (полнотекстовый поиск).
+     */
+    record RankCursor(double rank, long id) {
+
+        // Начало выдачи: ранг поиска лежит в [0, 1)
+        static final RankCursor FIRST = new RankCursor(1.0, 0L);
+    }
+
+    static String encodeRank(double rank, long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((RANK_PREFIX + rank + ":" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static RankCursor decodeRank(String token) {
+        if (token == null || token.isBlank()) {
+            return RankCursor.FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(':');
+            if (!decoded.startsWith(RANK_PREFIX) || separator <= RANK_PREFIX.length()) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            return new RankCursor(
+                    Double.parseDouble(decoded.substring(RANK_PREFIX.length(), separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token");
+        }
+    }
+
+    static void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Собирает страницу из выборки размером size + 1: лишний элемент означает, что есть следующая страница.
+     */
+    static <E, T> PageResponseDto<T> toPage(
+            List<E> rows, int size, ToLongFunction<E> idExtractor, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        return PageResponseDto.<T>builder()
+                .items(pageRows.stream().map(mapper).toList())
+                .nextPageToken(hasNext ? encode(idExtractor.applyAsLong(pageRows.get(size - 1))) : null)
+                .build();
+    }
+}
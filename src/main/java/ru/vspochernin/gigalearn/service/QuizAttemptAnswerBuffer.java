@@ -0,0 +1,240 @@
+package ru.vspochernin.gigalearn.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Буфер автосохранения ответов открытых попыток квизов ({@link QuizAttemptService#saveAnswers}).
+ * <p>
+ * Изменения ответов копятся в памяти по попытке: повторный ответ на тот же вопрос заменяет предыдущий.
+ * Раз в flush-interval накопленное дописывается в снимок quiz_attempt.answers одним UPDATE на пачку
+ * из batch-size попыток ({@code answers || delta}), поэтому нагрузка на БД зависит от числа активных
+ * попыток за интервал, а не от частоты автосохранений. При сдаче снимок дополняется тем, что еще в памяти.
+ * <p>
+ * Черновик попытки хранит квиз и дедлайн - повторные автосохранения проверяются без обращения к БД.
+ * Черновик без изменений за целый интервал выгружается, следующее автосохранение перечитает попытку.
+ * Несброшенные изменения теряются при падении процесса - не больше flush-interval автосохранений.
+ */
+@Component
+@Slf4j
+public class QuizAttemptAnswerBuffer {
+
+    // Попытки и изменения передаются массивами, как в QuizSubmissionWriteBehind; закрытые попытки не трогаем
+    private static final String UPDATE_SQL = """
+            UPDATE quiz_attempt a
+            SET answers = coalesce(a.answers, '{}'::jsonb) || t.delta::jsonb
+            FROM unnest(?::bigint[], ?::text[]) AS t(id, delta)
+            WHERE a.id = t.id AND a.finished_at IS NULL
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    private final Map<Long, Draft> drafts = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public QuizAttemptAnswerBuffer(JdbcTemplate jdbcTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${gigalearn.quiz-attempts.autosave.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Autosave batch size must be positive: " + batchSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    Draft get(long attemptId) {
+        return drafts.get(attemptId);
+    }
+
+    /**
+     * Черновик открытой попытки; вызывается после проверки попытки по БД.
+     *
+     * @param expiresAt после этого момента изменения не принимаются; null - без ограничения
+     */
+    Draft open(long attemptId, long quizId, Instant expiresAt) {
+        return drafts.computeIfAbsent(attemptId, id -> new Draft(quizId, expiresAt));
+    }
+
+    /**
+     * @return false - черновик уже выгружен или закрыт сдачей, его нужно открыть заново
+     */
+    boolean merge(Draft draft, Map<Long, List<Long>> answersByQuestion) {
+        draft.lock.lock();
+        try {
+            if (draft.detached) {
+                return false;
+            }
+            answersByQuestion.forEach((questionId, optionIds) -> draft.pending.put(questionId, List.copyOf(optionIds)));
+            return true;
+        } finally {
+            draft.lock.unlock();
+        }
+    }
+
+    /**
+     * Ответы попытки: сохраненный снимок плюс изменения, которые еще не дошли до БД.
+     * Черновик не меняется - транзакция сдачи может откатиться.
+     */
+    Map<Long, List<Long>> snapshot(long attemptId, Map<Long, List<Long>> saved) {
+        Map<Long, List<Long>> answers = saved == null ? new HashMap<>() : new HashMap<>(saved);
+        Draft draft = drafts.get(attemptId);
+        if (draft != null) {
+            draft.lock.lock();
+            try {
+                if (draft.inFlight != null) {
+                    answers.putAll(draft.inFlight);
+                }
+                answers.putAll(draft.pending);
+            } finally {
+                draft.lock.unlock();
+            }
+        }
+        return answers;
+    }
+
+    /**
+     * Убирает черновик сданной попытки; следующие автосохранения перечитают попытку и получат отказ.
+     */
+    void discard(long attemptId) {
+        Draft draft = drafts.remove(attemptId);
+        if (draft != null) {
+            draft.lock.lock();
+            try {
+                draft.detached = true;
+                draft.pending.clear();
+            } finally {
+                draft.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Дописывает накопленные изменения в quiz_attempt.answers. Пачка, которую не удалось записать,
+     * возвращается в черновики и уйдет со следующим сбросом.
+     */
+    @Scheduled(fixedDelayString = "${gigalearn.quiz-attempts.autosave.flush-interval:PT5S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Long> attemptIds = new ArrayList<>();
+            List<Draft> flushed = new ArrayList<>();
+            for (Map.Entry<Long, Draft> entry : drafts.entrySet()) {
+                Draft draft = entry.getValue();
+                draft.lock.lock();
+                try {
+                    if (!draft.pending.isEmpty()) {
+                        draft.inFlight = draft.pending;
+                        draft.pending = new HashMap<>();
+                        attemptIds.add(entry.getKey());
+                        flushed.add(draft);
+                    } else if (draft.inFlight == null) {
+                        // Целый интервал без изменений
+                        draft.detached = true;
+                        drafts.remove(entry.getKey(), draft);
+                    }
+                } finally {
+                    draft.lock.unlock();
+                }
+            }
+
+            for (int from = 0; from < flushed.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, flushed.size());
+                List<Draft> chunk = flushed.subList(from, to);
+                try {
+                    update(attemptIds.subList(from, to), chunk);
+                    chunk.forEach(draft -> complete(draft, true));
+                } catch (DataAccessException e) {
+                    log.warn("Failed to save answers of {} quiz attempts, will retry", chunk.size(), e);
+                    chunk.forEach(draft -> complete(draft, false));
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void update(List<Long> attemptIds, List<Draft> chunk) {
+        // inFlight меняет только сброс, а он выполняется под flushLock, поэтому сериализуем без блокировки черновика
+        String[] deltas = new String[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                deltas[i] = objectMapper.writeValueAsString(chunk.get(i).inFlight);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize quiz attempt answers", e);
+            }
+        }
+        Long[] ids = attemptIds.toArray(Long[]::new);
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPDATE_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("text", deltas));
+            return statement;
+        });
+    }
+
+    private static void complete(Draft draft, boolean saved) {
+        draft.lock.lock();
+        try {
+            if (!saved && !draft.detached) {
+                // Изменения, пришедшие во время сброса, новее отправленных
+                draft.inFlight.putAll(draft.pending);
+                draft.pending = draft.inFlight;
+            }
+            draft.inFlight = null;
+        } finally {
+            draft.lock.unlock();
+        }
+    }
+
+    /**
+     * Черновик попытки: неотправленные изменения и изменения, которые сейчас пишет сброс.
+     * Блокировка на черновик, а не на буфер: автосохранения разных попыток друг друга не ждут.
+     */
+    static final class Draft {
+
+        private final long quizId;
+        private final Instant expiresAt;
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Long, List<Long>> pending = new HashMap<>();
+        private Map<Long, List<Long>> inFlight;
+        private boolean detached;
+
+        private Draft(long quizId, Instant expiresAt) {
+            this.quizId = quizId;
+            this.expiresAt = expiresAt;
+        }
+
+        long getQuizId() {
+            return quizId;
+        }
+
+        boolean isExpired(Instant now) {
+            return expiresAt != null && now.isAfter(expiresAt);
+        }
+    }
+}
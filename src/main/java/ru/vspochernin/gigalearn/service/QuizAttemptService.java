@@ -0,0 +1,282 @@
+package ru.vspochernin.gigalearn.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.gigalearn.entity.Quiz;
+import ru.vspochernin.gigalearn.entity.QuizAttempt;
+import ru.vspochernin.gigalearn.entity.QuizSubmission;
+import ru.vspochernin.gigalearn.entity.User;
+import ru.vspochernin.gigalearn.exception.QuizAttemptClosedException;
+import ru.vspochernin.gigalearn.repository.QuizAttemptRepository;
+import ru.vspochernin.gigalearn.repository.QuizRepository;
+import ru.vspochernin.gigalearn.repository.QuizSubmissionRepository;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+import ru.vspochernin.gigalearn.repository.projection.AttemptDeadline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Попытки прохождения квиза с серверным контролем Quiz.timeLimit.
+ * <p>
+ * Попытка открывается с дедлайном startedAt + timeLimit и сдается до дедлайна плюс grace-period
+ * (запас на сеть). Дедлайны открытых попыток держит {@link AttemptTimerWheel}: раз в тик
+ * {@link #expireDueAttempts} забирает наступившие и закрывает их пачками по expiry-batch-size - одна
+ * транзакция на пачку, результат по сохраненным ответам на момент дедлайна. Колесо восстанавливается из
+ * quiz_attempt при старте приложения. Между ручной сдачей и автосдачей выбирает блокировка строки попытки.
+ * <p>
+ * Ответы открытой попытки автосохраняются через {@link QuizAttemptAnswerBuffer}; и ручная сдача,
+ * и автосдача оценивают сохраненные ответы.
+ */
+@Service
+@Slf4j
+public class QuizAttemptService {
+
+    private final QuizAttemptRepository quizAttemptRepository;
+    private final QuizRepository quizRepository;
+    private final UserRepository userRepository;
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final QuizService quizService;
+    private final QuizAttemptAnswerBuffer answerBuffer;
+    private final TransactionTemplate transactionTemplate;
+    private final int expiryBatchSize;
+    private final Duration gracePeriod;
+    private final AttemptTimerWheel timerWheel;
+
+    public QuizAttemptService(QuizAttemptRepository quizAttemptRepository,
+                              QuizRepository quizRepository,
+                              UserRepository userRepository,
+                              QuizSubmissionRepository quizSubmissionRepository,
+                              QuizService quizService,
+                              QuizAttemptAnswerBuffer answerBuffer,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${gigalearn.quiz-attempts.tick:PT1S}") Duration tick,
+                              @Value("${gigalearn.quiz-attempts.wheel-size:512}") int wheelSize,
+                              @Value("${gigalearn.quiz-attempts.expiry-batch-size:500}") int expiryBatchSize,
+                              @Value("${gigalearn.quiz-attempts.grace-period:PT5S}") Duration gracePeriod) {
+        if (expiryBatchSize <= 0 || gracePeriod.isNegative()) {
+            throw new IllegalArgumentException(String.format(
+                    "Quiz attempt expiry batch size must be positive and grace period non-negative: %d, %s",
+                    expiryBatchSize, gracePeriod));
+        }
+        this.quizAttemptRepository = quizAttemptRepository;
+        this.quizRepository = quizRepository;
+        this.userRepository = userRepository;
+        this.quizSubmissionRepository = quizSubmissionRepository;
+        this.quizService = quizService;
+        this.answerBuffer = answerBuffer;
+        this.transactionTemplate = transactionTemplate;
+        this.expiryBatchSize = expiryBatchSize;
+        this.gracePeriod = gracePeriod;
+        this.timerWheel = new AttemptTimerWheel(tick, wheelSize, Instant.now());
+    }
+
+    /**
+     * Открывает попытку. Если у студента уже есть открытая попытка этого квиза, возвращает ее:
+     * повторный старт (перезагрузка страницы) не продлевает время.
+     */
+    public QuizAttempt startAttempt(long quizId, long studentId) {
+        try {
+            return transactionTemplate.execute(status -> openAttempt(quizId, studentId));
+        } catch (DataIntegrityViolationException e) {
+            // Параллельный старт успел открыть попытку между проверкой и вставкой: вторую отклонил
+            // uk_quiz_attempt_open, а транзакция откатилась, поэтому открытую попытку читаем заново
+            return quizAttemptRepository.findByQuizIdAndStudentIdAndFinishedAtIsNull(quizId, studentId)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Автосохранение: изменения ответов открытой попытки (вопрос -> выбранные варианты, пустой список - ответ снят).
+     * Без транзакции: попытка читается из БД только при первом автосохранении, дальше запрос
+     * обслуживается черновиком в {@link QuizAttemptAnswerBuffer} и кэшем ключей ответов.
+     *
+     * @throws QuizAttemptClosedException попытка уже сдана или время вышло
+     */
+    public void saveAnswers(long quizId, long attemptId, Map<Long, List<Long>> answersByQuestion) {
+        // score проверяет, что вопросы и варианты принадлежат квизу; сам балл здесь не нужен
+        quizService.scoreAnswers(quizId, answersByQuestion);
+
+        while (true) {
+            QuizAttemptAnswerBuffer.Draft draft = answerBuffer.get(attemptId);
+            if (draft == null) {
+                draft = openDraft(quizId, attemptId);
+            }
+            if (draft.getQuizId() != quizId) {
+                throw new IllegalArgumentException("Quiz attempt not found: " + attemptId);
+            }
+            if (draft.isExpired(Instant.now())) {
+                throw new QuizAttemptClosedException("Quiz attempt time limit exceeded: " + attemptId);
+            }
+            if (answerBuffer.merge(draft, answersByQuestion)) {
+                return;
+            }
+            // Черновик успели закрыть сдачей или выгрузить по простою - перечитываем попытку
+        }
+    }
+
+    /**
+     * Сдает открытую попытку: ответы оцениваются как в {@link QuizService#takeQuiz}.
+     * Ответы из запроса дополняют автосохраненные, по одному вопросу побеждает запрос.
+     *
+     * @throws QuizAttemptClosedException попытка уже сдана (вручную или автоматически) или время вышло
+     */
+    @Transactional
+    public QuizSubmission submitAttempt(long quizId, long attemptId, Map<Long, List<Long>> answersByQuestion) {
+        QuizAttempt attempt = quizAttemptRepository.findByIdForUpdate(attemptId)
+                .filter(found -> found.getQuiz().getId() == quizId)
+                .orElseThrow(() -> new IllegalArgumentException("Quiz attempt not found: " + attemptId));
+        if (attempt.getFinishedAt() != null) {
+            throw new QuizAttemptClosedException("Quiz attempt already submitted: " + attemptId);
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        if (attempt.getDeadlineAt() != null && now.isAfter(attempt.getDeadlineAt().plus(gracePeriod))) {
+            // Попытку закроет таймер, здесь только отказ
+            throw new QuizAttemptClosedException("Quiz attempt time limit exceeded: " + attemptId);
+        }
+
+        Map<Long, List<Long>> answers = answerBuffer.snapshot(attemptId, attempt.getAnswers());
+        answers.putAll(answersByQuestion);
+        QuizSubmission submission = quizService.takeQuiz(attempt.getStudent().getId(), quizId, answers);
+        attempt.setAnswers(answers);
+        attempt.setFinishedAt(now);
+        afterCommit(() -> {
+            timerWheel.cancel(attemptId);
+            answerBuffer.discard(attemptId);
+        });
+        return submission;
+    }
+
+    /**
+     * Закрывает попытки с наступившим дедлайном. Пачка, которую не удалось закрыть, встает на следующий тик.
+     */
+    @Scheduled(fixedDelayString = "${gigalearn.quiz-attempts.tick:PT1S}")
+    public void expireDueAttempts() {
+        List<Long> due = timerWheel.advance(Instant.now());
+        for (int from = 0; from < due.size(); from += expiryBatchSize) {
+            List<Long> chunk = due.subList(from, Math.min(from + expiryBatchSize, due.size()));
+            try {
+                Integer expired = transactionTemplate.execute(status -> expire(chunk));
+                log.debug("Expired {} of {} due quiz attempts", expired, chunk.size());
+            } catch (RuntimeException e) {
+                log.warn("Failed to expire {} quiz attempts, will retry", chunk.size(), e);
+                Instant retryAt = Instant.now();
+                chunk.forEach(attemptId -> timerWheel.schedule(attemptId, retryAt));
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreTimers() {
+        List<AttemptDeadline> open = quizAttemptRepository.findOpenDeadlines();
+        for (AttemptDeadline attempt : open) {
+            timerWheel.schedule(attempt.id(), expiresAt(attempt.deadlineAt()));
+        }
+        if (!open.isEmpty()) {
+            log.info("Restored {} quiz attempt timers", open.size());
+        }
+    }
+
+    private QuizAttempt openAttempt(long quizId, long studentId) {
+        User student = userRepository.findById(studentId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new IllegalArgumentException("Quiz not found: " + quizId));
+
+        Optional<QuizAttempt> open = quizAttemptRepository.findByQuizIdAndStudentIdAndFinishedAtIsNull(quizId, studentId);
+        if (open.isPresent()) {
+            return open.get();
+        }
+
+        OffsetDateTime startedAt = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        // Вставка сразу, а не при коммите: нарушение uk_quiz_attempt_open приходит из репозитория
+        // как DataIntegrityViolationException
+        QuizAttempt attempt = quizAttemptRepository.saveAndFlush(QuizAttempt.builder()
+                .quiz(quiz)
+                .student(student)
+                .startedAt(startedAt)
+                .deadlineAt(quiz.getTimeLimit() == null ? null : startedAt.plusSeconds(quiz.getTimeLimit()))
+                .build());
+
+        // Таймер ставим после коммита: откаченная попытка не должна срабатывать
+        Instant expiresAt = expiresAt(attempt.getDeadlineAt());
+        if (expiresAt != null) {
+            long attemptId = attempt.getId();
+            afterCommit(() -> timerWheel.schedule(attemptId, expiresAt));
+        }
+        return attempt;
+    }
+
+    private int expire(List<Long> attemptIds) {
+        // Попытки, которые успели сдать вручную, сюда не попадут: запрос ждет их блокировку и видит finished_at
+        List<QuizAttempt> attempts = quizAttemptRepository.findOpenByIdInForUpdate(attemptIds);
+        List<QuizSubmission> submissions = new ArrayList<>(attempts.size());
+        for (QuizAttempt attempt : attempts) {
+            Map<Long, List<Long>> answers = answerBuffer.snapshot(attempt.getId(), attempt.getAnswers());
+            attempt.setAnswers(answers);
+            attempt.setFinishedAt(attempt.getDeadlineAt());
+            submissions.add(QuizSubmission.builder()
+                    .quiz(attempt.getQuiz())
+                    .student(attempt.getStudent())
+                    .score(scoreSavedAnswers(attempt, answers))
+                    .takenAt(attempt.getDeadlineAt())
+                    .build());
+        }
+        // Пакетная вставка (hibernate.jdbc.batch_size) и пакетный UPDATE попыток при коммите
+        quizSubmissionRepository.saveAll(submissions);
+        afterCommit(() -> attempts.forEach(attempt -> answerBuffer.discard(attempt.getId())));
+        return attempts.size();
+    }
+
+    private int scoreSavedAnswers(QuizAttempt attempt, Map<Long, List<Long>> answers) {
+        try {
+            return quizService.scoreAnswers(attempt.getQuiz().getId(), answers);
+        } catch (IllegalArgumentException e) {
+            // Вопрос или вариант удалили после автосохранения: попытку все равно нужно закрыть
+            log.warn("Quiz attempt {} closed with score 0: {}", attempt.getId(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private QuizAttemptAnswerBuffer.Draft openDraft(long quizId, long attemptId) {
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+                .filter(found -> found.getQuiz().getId() == quizId)
+                .orElseThrow(() -> new IllegalArgumentException("Quiz attempt not found: " + attemptId));
+        if (attempt.getFinishedAt() != null) {
+            throw new QuizAttemptClosedException("Quiz attempt already submitted: " + attemptId);
+        }
+        return answerBuffer.open(attemptId, quizId, expiresAt(attempt.getDeadlineAt()));
+    }
+
+    private Instant expiresAt(OffsetDateTime deadline) {
+        return deadline == null ? null : deadline.toInstant().plus(gracePeriod);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,14 +1,17 @@
 package ru.vspochernin.gigalearn.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.vspochernin.gigalearn.config.MetricBucket;
+import ru.vspochernin.gigalearn.dto.PageResponseDto;
+import ru.vspochernin.gigalearn.dto.QuizSubmissionResponseDto;
 import ru.vspochernin.gigalearn.entity.*;
 import ru.vspochernin.gigalearn.repository.*;
 
 import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +23,8 @@ public class QuizService {
     private final QuizSubmissionRepository quizSubmissionRepository;
     private final ModuleRepository moduleRepository;
     private final UserRepository userRepository;
+    private final AnswerKeyCache answerKeyCache;
+    private final QuizSubmissionWriteBehind submissionWriteBehind;
 
     @Transactional
     public long createQuiz(long moduleId, String title, Integer timeLimitSeconds) {
@@ -51,6 +56,7 @@ public class QuizService {
                 .build();
 
         Question saved = questionRepository.save(question);
+        answerKeyCache.invalidate(quizId);
         return saved.getId();
     }
 
@@ -68,83 +74,24 @@ public class QuizService {
                 .build();
 
         AnswerOption saved = answerOptionRepository.save(option);
+        answerKeyCache.invalidate(question.getQuiz().getId());
         return saved.getId();
     }
 
     @Transactional
-    public QuizSubmission takeQuiz(long studentId, long quizId, Map<Long, List<Long>> answersByQuestion) {
+    public QuizSubmission takeQuiz(long studentId, @MetricBucket long quizId, Map<Long, List<Long>> answersByQuestion) {
         // Проверяем существование студента
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
 
-        // Проверяем существование квиза и загружаем его вопросы
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new IllegalArgumentException("Quiz not found: " + quizId));
+        // Ключ ответов берется из кэша; БД читается только при промахе
+        CompiledAnswerKey answerKey = getAnswerKey(quizId);
 
-        // Загружаем все вопросы квиза
-        List<Question> questions = questionRepository.findByQuizId(quizId);
-        Set<Long> validQuestionIds = questions.stream()
-                .map(Question::getId)
-                .collect(Collectors.toSet());
-
-        // Валидация: все questionId из ответов должны принадлежать этому квизу
-        for (Long questionId : answersByQuestion.keySet()) {
-            if (!validQuestionIds.contains(questionId)) {
-                throw new IllegalArgumentException(
-                        String.format("Question %d does not belong to quiz %d", questionId, quizId)
-                );
-            }
-        }
+        // Валидация ответов и подсчет балла выполняются в памяти
+        int correctAnswers = answerKey.score(quizId, answersByQuestion);
 
-        // Загружаем все варианты ответов для валидации и подсчета
-        Map<Long, List<AnswerOption>> optionsByQuestion = new HashMap<>();
-        for (Question question : questions) {
-            List<AnswerOption> options = answerOptionRepository.findByQuestionId(question.getId());
-            optionsByQuestion.put(question.getId(), options);
-        }
-
-        // Валидация: все optionId должны принадлежать соответствующим вопросам
-        for (Map.Entry<Long, List<Long>> entry : answersByQuestion.entrySet()) {
-            Long questionId = entry.getKey();
-            List<Long> selectedOptionIds = entry.getValue();
-
-            List<AnswerOption> validOptions = optionsByQuestion.get(questionId);
-            Set<Long> validOptionIds = validOptions.stream()
-                    .map(AnswerOption::getId)
-                    .collect(Collectors.toSet());
-
-            for (Long optionId : selectedOptionIds) {
-                if (!validOptionIds.contains(optionId)) {
-                    throw new IllegalArgumentException(
-                            String.format("Option %d does not belong to question %d", optionId, questionId)
-                    );
-                }
-            }
-        }
-
-        // Подсчет балла: вопрос считается верно отвеченным, если множество выбранных
-        // вариантов ТОЧНО совпадает с множеством правильных вариантов
-        int correctAnswers = 0;
-        for (Question question : questions) {
-            Long questionId = question.getId();
-            List<AnswerOption> options = optionsByQuestion.get(questionId);
-
-            // Множество правильных вариантов для этого вопроса
-            Set<Long> correctOptionIds = options.stream()
-                    .filter(AnswerOption::getIsCorrect)
-                    .map(AnswerOption::getId)
-                    .collect(Collectors.toSet());
-
-            // Множество выбранных студентом вариантов
-            Set<Long> selectedOptionIds = answersByQuestion.getOrDefault(questionId, List.of())
-                    .stream()
-                    .collect(Collectors.toSet());
-
-            // Проверяем точное совпадение множеств
-            if (correctOptionIds.equals(selectedOptionIds)) {
-                correctAnswers++;
-            }
-        }
+        // Существование квиза подтверждено ключом, сам квиз не загружаем
+        Quiz quiz = quizRepository.getReferenceById(quizId);
 
         // Создаем и сохраняем результат прохождения теста
         QuizSubmission submission = QuizSubmission.builder()
@@ -154,9 +101,28 @@ public class QuizService {
                 .takenAt(OffsetDateTime.now())
                 .build();
 
+        // В режиме write-behind результат запишет фоновый поток; выключенный режим или полная очередь - обычный INSERT
+        if (submissionWriteBehind.offer(submission)) {
+            return submission;
+        }
         return quizSubmissionRepository.save(submission);
     }
 
+    /**
+     * Проверяет ответы и считает балл без записи результата.
+     * Без транзакции: при попадании в кэш ключей не занимает соединение (автосохранение вызывает на каждый запрос).
+     *
+     * @throws IllegalArgumentException если вопрос не принадлежит квизу или вариант - вопросу
+     */
+    public int scoreAnswers(long quizId, Map<Long, List<Long>> answersByQuestion) {
+        return getAnswerKey(quizId).score(quizId, answersByQuestion);
+    }
+
+    @Transactional(readOnly = true)
+    public int getQuestionCount(long quizId) {
+        return getAnswerKey(quizId).getQuestionCount();
+    }
+
     @Transactional(readOnly = true)
     public Quiz getQuizById(long id) {
         return quizRepository.findById(id)
@@ -171,6 +137,27 @@ public class QuizService {
         return quizSubmissionRepository.findByQuizId(quizId);
     }
 
+    @Transactional(readOnly = true)
+    public PageResponseDto<QuizSubmissionResponseDto> getSubmissionsPage(long quizId, String pageToken, int size) {
+        PageTokens.validatePageSize(size);
+        long afterId = PageTokens.decode(pageToken);
+
+        // Ключ ответов заодно подтверждает существование квиза и дает число вопросов
+        int totalQuestions = getAnswerKey(quizId).getQuestionCount();
+
+        List<QuizSubmission> rows = quizSubmissionRepository.findPageByQuizId(quizId, afterId, Limit.of(size + 1));
+        return PageTokens.toPage(rows, size, QuizSubmission::getId, submission -> QuizSubmissionResponseDto.builder()
+                .id(submission.getId())
+                .studentId(submission.getStudent().getId())
+                .studentName(submission.getStudent().getName())
+                .quizId(submission.getQuiz().getId())
+                .quizTitle(submission.getQuiz().getTitle())
+                .score(submission.getScore())
+                .totalQuestions(totalQuestions)
+                .takenAt(submission.getTakenAt())
+                .build());
+    }
+
     @Transactional(readOnly = true)
     public List<QuizSubmission> getSubmissionsByStudent(long studentId) {
         if (!userRepository.existsById(studentId)) {
@@ -178,5 +165,21 @@ public class QuizService {
         }
         return quizSubmissionRepository.findByStudentId(studentId);
     }
-}
 
+    private CompiledAnswerKey getAnswerKey(long quizId) {
+        CompiledAnswerKey cached = answerKeyCache.get(quizId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Версию фиксируем до чтения из БД, чтобы не закэшировать устаревший ключ
+        long version = answerKeyCache.currentVersion();
+        if (!quizRepository.existsById(quizId)) {
+            throw new IllegalArgumentException("Quiz not found: " + quizId);
+        }
+
+        CompiledAnswerKey compiled = CompiledAnswerKey.compile(version, questionRepository.findAnswerKeyByQuizId(quizId));
+        answerKeyCache.put(quizId, compiled);
+        return compiled;
+    }
+}
@@ -0,0 +1,215 @@
+package ru.vspochernin.gigalearn.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал {@link QuizSubmissionWriteBehind}: результаты квизов, принятые в очередь, но еще не записанные в БД.
+ * <p>
+ * Журнал - это последовательность сегментов из записей фиксированной длины: id, quiz_id, student_id, score,
+ * taken_at в микросекундах и CRC32. При каждом сбросе очереди текущий сегмент закрывается, а после коммита
+ * в БД удаляется. Сегменты, оставшиеся после падения, при старте заново вставляются в БД. Недописанный
+ * хвост (оборванная запись или неверная контрольная сумма) отбрасывается: такую запись клиенту не подтверждали.
+ * <p>
+ * Не потокобезопасен, кроме {@link Segment#sync}: append и rotate вызываются под блокировкой очереди.
+ */
+final class QuizSubmissionJournal implements Closeable {
+
+    static final int RECORD_SIZE = 40;
+
+    private static final String SEGMENT_PREFIX = "quiz-submissions-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    record Entry(long id, long quizId, long studentId, int score, OffsetDateTime takenAt) {
+    }
+
+    /**
+     * Позиция записи в сегменте: запись устойчива после {@code segment.sync(position)}.
+     */
+    record Appended(Segment segment, long position) {
+
+        void sync() throws IOException {
+            segment.sync(position);
+        }
+    }
+
+    private final Path directory;
+    private long nextSegmentNumber;
+    private Segment current;
+
+    QuizSubmissionJournal(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.nextSegmentNumber = existingSegments(directory).stream()
+                .mapToLong(QuizSubmissionJournal::segmentNumber)
+                .max()
+                .orElse(0) + 1;
+        this.current = openSegment();
+    }
+
+    Appended append(Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putLong(entry.id());
+        buffer.putLong(entry.quizId());
+        buffer.putLong(entry.studentId());
+        buffer.putInt(entry.score());
+        buffer.putLong(toEpochMicros(entry.takenAt()));
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, RECORD_SIZE - Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return new Appended(current, current.write(buffer));
+    }
+
+    /**
+     * Закрывает текущий сегмент (с fsync) и начинает новый.
+     *
+     * @return путь закрытого сегмента - его можно удалить, когда все его записи закоммичены в БД
+     */
+    Path rotate() throws IOException {
+        Segment closed = current;
+        current = openSegment();
+        closed.close();
+        return closed.path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        current.close();
+        if (Files.size(current.path) == 0) {
+            Files.delete(current.path);
+        }
+    }
+
+    /**
+     * Сегменты в каталоге в порядке записи.
+     */
+    static List<Path> existingSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(QuizSubmissionJournal::segmentNumber))
+                    .toList();
+        }
+    }
+
+    static List<Entry> read(Path segment) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        List<Entry> entries = new ArrayList<>(bytes.length / RECORD_SIZE);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int start = buffer.position();
+            long id = buffer.getLong();
+            long quizId = buffer.getLong();
+            long studentId = buffer.getLong();
+            int score = buffer.getInt();
+            long takenAtMicros = buffer.getLong();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, start, RECORD_SIZE - Integer.BYTES);
+            if (buffer.getInt() != (int) crc.getValue()) {
+                break;
+            }
+            entries.add(new Entry(id, quizId, studentId, score, fromEpochMicros(takenAtMicros)));
+        }
+        return entries;
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new Segment(path, channel);
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long toEpochMicros(OffsetDateTime time) {
+        Instant instant = time.toInstant();
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static OffsetDateTime fromEpochMicros(long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+    }
+
+    /**
+     * Файл сегмента. Групповой fsync: поток, чей sync застал уже выполненный force, не вызывает его повторно,
+     * поэтому под нагрузкой одна синхронизация подтверждает записи многих потоков.
+     */
+    static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        // Не synchronized: fsync под монитором закрепил бы виртуальный поток за потоком-носителем
+        private final ReentrantLock lock = new ReentrantLock();
+        private long syncedPosition;
+        private boolean closed;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * @return позиция конца записи
+         */
+        private long write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return channel.position();
+        }
+
+        void sync(long position) throws IOException {
+            lock.lock();
+            try {
+                if (closed || syncedPosition >= position) {
+                    return;
+                }
+                long target = channel.position();
+                channel.force(false);
+                syncedPosition = target;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close() throws IOException {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                channel.force(false);
+                channel.close();
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package ru.vspochernin.gigalearn.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.gigalearn.entity.QuizSubmission;
+import ru.vspochernin.gigalearn.service.QuizSubmissionJournal.Appended;
+import ru.vspochernin.gigalearn.service.QuizSubmissionJournal.Entry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись результатов квизов (write-behind) для пиков, когда тысячи студентов сдают квиз одновременно.
+ * <p>
+ * Включается gigalearn.quiz-submissions.write-behind.enabled. Оцененный результат получает id из генератора
+ * Hibernate и встает в ограниченную очередь, клиент сразу получает балл. Фоновый поток сбрасывает очередь
+ * многострочным INSERT-ом, когда набралось batch-size записей или прошло flush-interval с первой записи.
+ * Если очередь заполнена, {@link #offer} возвращает false и результат пишется синхронно, как без буфера.
+ * <p>
+ * Без журнала результаты из очереди теряются при падении процесса. С journal-path каждая запись перед ответом
+ * клиенту дописывается в {@link QuizSubmissionJournal} и fsync-ается, а при старте недописанные в БД сегменты
+ * вставляются повторно (ON CONFLICT DO NOTHING по первичному ключу, поэтому повтор безопасен).
+ * Запись, которую не удалось fsync-нуть, не подтверждается как отложенная: она вставляется сразу.
+ */
+@Component
+@Slf4j
+public class QuizSubmissionWriteBehind {
+
+    // Параметры передаются массивами, поэтому размер пачки не упирается в лимит bind-параметров
+    private static final String INSERT_SQL = """
+            INSERT INTO quiz_submission (id, quiz_id, student_id, score, taken_at)
+            SELECT t.id, t.quiz_id, t.student_id, t.score, t.taken_at::timestamptz
+            FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::int[], ?::text[])
+                AS t(id, quiz_id, student_id, score, taken_at)
+            ON CONFLICT (id, taken_at) DO NOTHING
+            """;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final String journalPath;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private QuizSubmissionJournal journal;
+
+    // Сброс в БД выполняет один поток за раз; неудачная пачка и ее сегменты журнала ждут следующей попытки
+    private final ReentrantLock persistLock = new ReentrantLock();
+    private final List<Entry> pending = new ArrayList<>();
+    private final List<Path> pendingSegments = new ArrayList<>();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public QuizSubmissionWriteBehind(EntityManager entityManager,
+                                     JdbcTemplate jdbcTemplate,
+                                     @Value("${gigalearn.quiz-submissions.write-behind.enabled:false}") boolean enabled,
+                                     @Value("${gigalearn.quiz-submissions.write-behind.capacity:10000}") int capacity,
+                                     @Value("${gigalearn.quiz-submissions.write-behind.batch-size:500}") int batchSize,
+                                     @Value("${gigalearn.quiz-submissions.write-behind.flush-interval:PT0.005S}") Duration flushInterval,
+                                     @Value("${gigalearn.quiz-submissions.write-behind.journal-path:}") String journalPath) {
+        if (capacity <= 0 || batchSize <= 0 || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException(String.format(
+                    "Write-behind capacity, batch size and flush interval must be positive: %d, %d, %s",
+                    capacity, batchSize, flushInterval));
+        }
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.journalPath = journalPath;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (!journalPath.isBlank()) {
+            Path directory = Path.of(journalPath);
+            recover(directory);
+            journal = new QuizSubmissionJournal(directory);
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "quiz-submission-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Quiz submission write-behind enabled: capacity {}, batch {}, interval {}, journal {}",
+                capacity, batchSize, flushInterval, journal != null ? journalPath : "off");
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            batchReady.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writer.join();
+        flush();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Ставит результат в очередь. Вызывается в транзакции: id берется из генератора Hibernate,
+     * чтобы не пересечься с pooled-оптимизатором quiz_submission_seq.
+     *
+     * @return true - результат получил id и будет записан фоновым потоком (или уже записан, если журнал
+     * не удалось синхронизировать); false - режим выключен или очередь заполнена, результат нужно сохранить
+     * обычным способом
+     */
+    public boolean offer(QuizSubmission submission) {
+        if (!running) {
+            return false;
+        }
+        // Ключ партиции в журнале и в БД должен совпадать до микросекунды, иначе повтор журнала не узнает строку
+        submission.setTakenAt(submission.getTakenAt().truncatedTo(ChronoUnit.MICROS));
+        long id = nextId();
+        Entry entry = new Entry(id, submission.getQuiz().getId(), submission.getStudent().getId(),
+                submission.getScore(), submission.getTakenAt());
+
+        Appended appended = null;
+        lock.lock();
+        try {
+            if (!running || queue.size() >= capacity) {
+                return false;
+            }
+            if (journal != null) {
+                appended = journal.append(entry);
+            }
+            queue.add(entry);
+            if (queue.size() == 1) {
+                notEmpty.signal();
+            }
+            if (queue.size() >= batchSize) {
+                batchReady.signal();
+            }
+        } catch (IOException e) {
+            log.warn("Quiz submission journal append failed, writing synchronously", e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+
+        if (appended != null) {
+            try {
+                // fsync вне блокировки очереди: параллельные потоки подтверждаются одной синхронизацией
+                appended.sync();
+            } catch (IOException e) {
+                log.error("Quiz submission journal sync failed for submission {}, writing synchronously", id, e);
+                writeUnsynced(entry);
+            }
+        }
+        submission.setId(id);
+        return true;
+    }
+
+    /**
+     * Синхронно записывает в БД все, что сейчас в очереди.
+     */
+    public void flush() {
+        persistLock.lock();
+        try {
+            lock.lock();
+            try {
+                if (!queue.isEmpty()) {
+                    pending.addAll(queue);
+                    queue.clear();
+                    if (journal != null) {
+                        pendingSegments.add(journal.rotate());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Quiz submission journal rotation failed", e);
+            } finally {
+                lock.unlock();
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            try {
+                insert(pending);
+            } catch (DataAccessException e) {
+                // БД недоступна: пачка и ее сегменты журнала остаются до следующего сброса
+                log.warn("Failed to write {} buffered quiz submissions, will retry", pending.size(), e);
+                return;
+            }
+            pending.clear();
+            for (Path segment : pendingSegments) {
+                deleteSegment(segment);
+            }
+            pendingSegments.clear();
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    /**
+     * Запись не попала на диск - подтверждать ее как отложенную нельзя. Забираем ее из очереди или из пачки,
+     * которую не удалось записать, и вставляем сразу в транзакции вызывающего. Id тот же, поэтому копия
+     * из журнала при повторе упрется в ON CONFLICT. Под persistLock сброс не идет параллельно: если записи
+     * нет ни в очереди, ни в пачке, фоновый поток ее уже закоммитил.
+     */
+    private void writeUnsynced(Entry entry) {
+        persistLock.lock();
+        try {
+            boolean dequeued;
+            lock.lock();
+            try {
+                dequeued = queue.remove(entry);
+            } finally {
+                lock.unlock();
+            }
+            if (dequeued || pending.remove(entry)) {
+                insertChunk(List.of(entry));
+            }
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        while (running) {
+            lock.lock();
+            try {
+                while (running && queue.isEmpty()) {
+                    notEmpty.await();
+                }
+                // Первая запись в очереди: ждем либо полную пачку, либо flush-interval
+                long nanos = flushInterval.toNanos();
+                while (running && queue.size() < batchSize && nanos > 0) {
+                    nanos = batchReady.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Quiz submission writer failed", e);
+            }
+        }
+    }
+
+    private void recover(Path directory) throws IOException {
+        for (Path segment : QuizSubmissionJournal.existingSegments(directory)) {
+            List<Entry> entries = QuizSubmissionJournal.read(segment);
+            insert(entries);
+            deleteSegment(segment);
+            log.info("Recovered {} quiz submissions from journal {}", entries.size(), segment);
+        }
+    }
+
+    private void insert(List<Entry> entries) {
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Entry> chunk = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            try {
+                insertChunk(chunk);
+            } catch (DataIntegrityViolationException e) {
+                // Квиз или студента успели удалить: вставляем по одной, чтобы не потерять остальную пачку
+                for (Entry entry : chunk) {
+                    try {
+                        insertChunk(List.of(entry));
+                    } catch (DataIntegrityViolationException rowError) {
+                        log.warn("Dropping buffered quiz submission {}: {}", entry,
+                                rowError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void insertChunk(List<Entry> chunk) {
+        Long[] ids = new Long[chunk.size()];
+        Long[] quizIds = new Long[chunk.size()];
+        Long[] studentIds = new Long[chunk.size()];
+        Integer[] scores = new Integer[chunk.size()];
+        String[] takenAt = new String[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            Entry entry = chunk.get(i);
+            ids[i] = entry.id();
+            quizIds[i] = entry.quizId();
+            studentIds[i] = entry.studentId();
+            scores[i] = entry.score();
+            takenAt[i] = entry.takenAt().toString();
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("bigint", quizIds));
+            statement.setArray(3, connection.createArrayOf("bigint", studentIds));
+            statement.setArray(4, connection.createArrayOf("integer", scores));
+            statement.setArray(5, connection.createArrayOf("text", takenAt));
+            return statement;
+        });
+    }
+
+    private long nextId() {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(QuizSubmission.class)
+                .getGenerator();
+        return (Long) idGenerator.generate(session, null);
+    }
+
+    private static void deleteSegment(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            // Повторная вставка при следующем старте ничего не испортит
+            log.warn("Failed to delete quiz submission journal segment {}", segment, e);
+        }
+    }
+}
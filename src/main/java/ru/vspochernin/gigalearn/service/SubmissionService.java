@@ -1,12 +1,12 @@
 package ru.vspochernin.gigalearn.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.vspochernin.gigalearn.entity.Assignment;
+import ru.vspochernin.gigalearn.dto.PageResponseDto;
+import ru.vspochernin.gigalearn.dto.SubmissionResponseDto;
 import ru.vspochernin.gigalearn.entity.Submission;
-import ru.vspochernin.gigalearn.entity.User;
 import ru.vspochernin.gigalearn.exception.DuplicateSubmissionException;
 import ru.vspochernin.gigalearn.repository.AssignmentRepository;
 import ru.vspochernin.gigalearn.repository.SubmissionRepository;
@@ -26,38 +26,21 @@ public class SubmissionService {
     @Transactional
     public long submit(long studentId, long assignmentId, String content) {
         // Проверяем существование студента
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
+        if (!userRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("User not found: " + studentId);
+        }
 
         // Проверяем существование задания
-        Assignment assignment = assignmentRepository.findById(assignmentId)
-                .orElseThrow(() -> new IllegalArgumentException("Assignment not found: " + assignmentId));
-
-        // Проверяем, не сдавал ли студент уже это задание
-        if (submissionRepository.findByStudentIdAndAssignmentId(studentId, assignmentId).isPresent()) {
-            throw new DuplicateSubmissionException(
-                    String.format("Student %d has already submitted assignment %d", studentId, assignmentId)
-            );
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new IllegalArgumentException("Assignment not found: " + assignmentId);
         }
 
-        // Создаем сдачу
-        Submission submission = Submission.builder()
-                .student(student)
-                .assignment(assignment)
-                .content(content)
-                .submittedAt(OffsetDateTime.now())
-                .build();
-
-        try {
-            Submission saved = submissionRepository.save(submission);
-            return saved.getId();
-        } catch (DataIntegrityViolationException e) {
-            // На случай race condition - если между проверкой и сохранением успели сдать
-            throw new DuplicateSubmissionException(
-                    String.format("Student %d has already submitted assignment %d", studentId, assignmentId),
-                    e
-            );
-        }
+        // Повторную сдачу, в том числе при гонке параллельных запросов, отсекает ON CONFLICT по submission_key:
+        // без предварительного SELECT-а и без DataIntegrityViolationException
+        return submissionRepository.insertIfAbsent(studentId, assignmentId, content, OffsetDateTime.now())
+                .orElseThrow(() -> new DuplicateSubmissionException(
+                        String.format("Student %d has already submitted assignment %d", studentId, assignmentId)
+                ));
     }
 
     @Transactional
@@ -86,55 +69,49 @@ public class SubmissionService {
     }
 
     @Transactional(readOnly = true)
-    public List<Submission> getByAssignment(long assignmentId) {
+    public List<SubmissionResponseDto> getByAssignment(long assignmentId) {
+        // Проверяем существование задания
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new IllegalArgumentException("Assignment not found: " + assignmentId);
+        }
+
+        // Один запрос с конструкторным выражением: без N+1 по студентам и без managed-сущностей
+        return submissionRepository.findResponsesByAssignmentId(assignmentId);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponseDto<SubmissionResponseDto> getPageByAssignment(long assignmentId, String pageToken, int size) {
+        PageTokens.validatePageSize(size);
+        long afterId = PageTokens.decode(pageToken);
+
         // Проверяем существование задания
         if (!assignmentRepository.existsById(assignmentId)) {
             throw new IllegalArgumentException("Assignment not found: " + assignmentId);
         }
 
-        // Получаем все сдачи для задания
-        // Инициализируем базовые поля внутри транзакции
-        return submissionRepository.findByAssignmentId(assignmentId).stream()
-                .map(submission -> {
-                    // Инициализируем поля для использования вне транзакции
-                    submission.getId();
-                    submission.getContent();
-                    submission.getScore();
-                    submission.getSubmittedAt();
-                    // Инициализируем поля студента
-                    User student = submission.getStudent();
-                    student.getId();
-                    student.getName();
-                    student.getEmail();
-                    return submission;
-                })
-                .toList();
+        List<Submission> rows = submissionRepository.findPageByAssignmentId(assignmentId, afterId, Limit.of(size + 1));
+        return PageTokens.toPage(rows, size, Submission::getId, submission -> SubmissionResponseDto.builder()
+                .id(submission.getId())
+                .studentId(submission.getStudent().getId())
+                .studentName(submission.getStudent().getName())
+                .assignmentId(submission.getAssignment().getId())
+                .assignmentTitle(submission.getAssignment().getTitle())
+                .content(submission.getContent())
+                .submittedAt(submission.getSubmittedAt())
+                .score(submission.getScore())
+                .feedback(submission.getFeedback())
+                .build());
     }
 
     @Transactional(readOnly = true)
-    public List<Submission> getByStudent(long studentId) {
+    public List<SubmissionResponseDto> getByStudent(long studentId) {
         // Проверяем существование студента
         if (!userRepository.existsById(studentId)) {
             throw new IllegalArgumentException("User not found: " + studentId);
         }
 
-        // Получаем все сдачи студента
-        // Инициализируем базовые поля внутри транзакции
-        return submissionRepository.findByStudentId(studentId).stream()
-                .map(submission -> {
-                    // Инициализируем поля для использования вне транзакции
-                    submission.getId();
-                    submission.getContent();
-                    submission.getScore();
-                    submission.getSubmittedAt();
-                    // Инициализируем поля задания
-                    Assignment assignment = submission.getAssignment();
-                    assignment.getId();
-                    assignment.getTitle();
-                    assignment.getMaxScore();
-                    return submission;
-                })
-                .toList();
+        // Один запрос с конструкторным выражением: без N+1 по заданиям и без managed-сущностей
+        return submissionRepository.findResponsesByStudentId(studentId);
     }
 }
 
@@ -0,0 +1,186 @@
+-- Базовая схема: совпадает с той, что раньше создавал Hibernate (ddl-auto), и проходит ddl-auto=validate.
+-- Идентификаторы выдаются sequence-ами с шагом 50 под pooled-оптимизатор (allocationSize = 50).
+
+create sequence app_user_seq start with 1 increment by 50;
+create sequence category_seq start with 1 increment by 50;
+create sequence tag_seq start with 1 increment by 50;
+create sequence course_seq start with 1 increment by 50;
+create sequence module_seq start with 1 increment by 50;
+create sequence lesson_seq start with 1 increment by 50;
+create sequence assignment_seq start with 1 increment by 50;
+create sequence submission_seq start with 1 increment by 50;
+create sequence quiz_seq start with 1 increment by 50;
+create sequence question_seq start with 1 increment by 50;
+create sequence answer_option_seq start with 1 increment by 50;
+create sequence quiz_submission_seq start with 1 increment by 50;
+create sequence enrollment_seq start with 1 increment by 50;
+create sequence course_review_seq start with 1 increment by 50;
+
+create table app_user (
+    id    bigint       not null,
+    name  varchar(255) not null,
+    email varchar(255) not null,
+    role  varchar(255) not null check (role in ('STUDENT', 'TEACHER', 'ADMIN')),
+    constraint pk_app_user primary key (id),
+    constraint uk_app_user_email unique (email)
+);
+
+create table profile (
+    id         bigint not null,
+    bio        text,
+    avatar_url varchar(255),
+    constraint pk_profile primary key (id),
+    constraint fk_profile_user foreign key (id) references app_user (id)
+);
+
+create table category (
+    id   bigint       not null,
+    name varchar(255) not null,
+    constraint pk_category primary key (id),
+    constraint uk_category_name unique (name)
+);
+
+create table tag (
+    id   bigint       not null,
+    name varchar(255) not null,
+    constraint pk_tag primary key (id),
+    constraint uk_tag_name unique (name)
+);
+
+create table course (
+    id          bigint       not null,
+    title       varchar(255) not null,
+    description text,
+    duration    varchar(255),
+    start_date  date,
+    category_id bigint       not null,
+    teacher_id  bigint       not null,
+    constraint pk_course primary key (id),
+    constraint fk_course_category foreign key (category_id) references category (id),
+    constraint fk_course_teacher foreign key (teacher_id) references app_user (id)
+);
+
+create table course_tag (
+    course_id bigint not null,
+    tag_id    bigint not null,
+    constraint pk_course_tag primary key (course_id, tag_id),
+    constraint fk_course_tag_course foreign key (course_id) references course (id),
+    constraint fk_course_tag_tag foreign key (tag_id) references tag (id)
+);
+
+create table module (
+    id          bigint       not null,
+    title       varchar(255) not null,
+    description text,
+    order_index integer,
+    course_id   bigint       not null,
+    constraint pk_module primary key (id),
+    constraint fk_module_course foreign key (course_id) references course (id)
+);
+
+create table lesson (
+    id        bigint       not null,
+    title     varchar(255) not null,
+    content   text,
+    video_url varchar(255),
+    module_id bigint       not null,
+    constraint pk_lesson primary key (id),
+    constraint fk_lesson_module foreign key (module_id) references module (id)
+);
+
+create table assignment (
+    id          bigint       not null,
+    title       varchar(255) not null,
+    description text,
+    due_date    date,
+    max_score   integer,
+    lesson_id   bigint       not null,
+    constraint pk_assignment primary key (id),
+    constraint fk_assignment_lesson foreign key (lesson_id) references lesson (id)
+);
+
+create table submission (
+    id            bigint not null,
+    assignment_id bigint not null,
+    student_id    bigint not null,
+    submitted_at  timestamp(6) with time zone,
+    content       text,
+    score         integer,
+    feedback      text,
+    constraint pk_submission primary key (id),
+    constraint uk_submission_student_id_assignment_id unique (student_id, assignment_id),
+    constraint fk_submission_assignment foreign key (assignment_id) references assignment (id),
+    constraint fk_submission_student foreign key (student_id) references app_user (id)
+);
+
+-- Keyset-пагинация сдач задания (assignment_id = ? AND id > ? ORDER BY id)
+create index idx_submission_assignment_id_id on submission (assignment_id, id);
+
+create table quiz (
+    id         bigint       not null,
+    title      varchar(255) not null,
+    time_limit integer,
+    module_id  bigint       not null,
+    constraint pk_quiz primary key (id),
+    constraint uk_quiz_module_id unique (module_id),
+    constraint fk_quiz_module foreign key (module_id) references module (id)
+);
+
+create table question (
+    id      bigint not null,
+    text    text   not null,
+    type    varchar(255),
+    quiz_id bigint not null,
+    constraint pk_question primary key (id),
+    constraint fk_question_quiz foreign key (quiz_id) references quiz (id)
+);
+
+create table answer_option (
+    id          bigint  not null,
+    text        text    not null,
+    is_correct  boolean not null,
+    question_id bigint  not null,
+    constraint pk_answer_option primary key (id),
+    constraint fk_answer_option_question foreign key (question_id) references question (id)
+);
+
+create table quiz_submission (
+    id         bigint not null,
+    quiz_id    bigint not null,
+    student_id bigint not null,
+    score      integer,
+    taken_at   timestamp(6) with time zone,
+    constraint pk_quiz_submission primary key (id),
+    constraint fk_quiz_submission_quiz foreign key (quiz_id) references quiz (id),
+    constraint fk_quiz_submission_student foreign key (student_id) references app_user (id)
+);
+
+-- Keyset-пагинация результатов квиза (quiz_id = ? AND id > ? ORDER BY id)
+create index idx_quiz_submission_quiz_id_id on quiz_submission (quiz_id, id);
+
+create table enrollment (
+    id          bigint not null,
+    user_id     bigint not null,
+    course_id   bigint not null,
+    enroll_date date,
+    status      varchar(255),
+    constraint pk_enrollment primary key (id),
+    constraint uk_enrollment_user_id_course_id unique (user_id, course_id),
+    constraint fk_enrollment_user foreign key (user_id) references app_user (id),
+    constraint fk_enrollment_course foreign key (course_id) references course (id)
+);
+
+-- Keyset-пагинация записей курса (course_id = ? AND id > ? ORDER BY id)
+create index idx_enrollment_course_id_id on enrollment (course_id, id);
+
+create table course_review (
+    id         bigint not null,
+    course_id  bigint not null,
+    student_id bigint not null,
+    rating     integer,
+    comment    text,
+    created_at timestamp(6) with time zone,
+    constraint pk_course_review primary key (id),
+    constraint fk_course_review_course foreign key (course_id) references course (id),
+    constraint fk_course_review_student foreign key (student_id) references app_user (id)
+);
@@ -0,0 +1,27 @@
+-- PostgreSQL не индексирует внешние ключи автоматически: без индексов findBy...Id и выборки
+-- по родителю идут seq scan-ом, а удаление родителя проверяет дочернюю таблицу целиком.
+-- Внешние ключи, уже покрытые ведущей колонкой другого индекса, отдельно не индексируются:
+--   enrollment.user_id       - uk_enrollment_user_id_course_id
+--   enrollment.course_id     - idx_enrollment_course_id_id
+--   submission.student_id    - uk_submission_student_id_assignment_id
+--   submission.assignment_id - idx_submission_assignment_id_id
+--   quiz_submission.quiz_id  - idx_quiz_submission_quiz_id_id
+--   quiz.module_id           - uk_quiz_module_id
+--   course_tag.course_id     - pk_course_tag
+
+-- Модули курса читаются упорядоченными по order_index (дерево курса, findByCourseId)
+create index idx_module_course_id_order_index on module (course_id, order_index);
+
+create index idx_lesson_module_id on lesson (module_id);
+create index idx_assignment_lesson_id on assignment (lesson_id);
+create index idx_question_quiz_id on question (quiz_id);
+create index idx_answer_option_question_id on answer_option (question_id);
+
+-- Результаты студента (findByStudentId) и проверка FK при удалении пользователя
+create index idx_quiz_submission_student_id on quiz_submission (student_id);
+
+create index idx_course_category_id on course (category_id);
+create index idx_course_teacher_id on course (teacher_id);
+create index idx_course_tag_tag_id on course_tag (tag_id);
+create index idx_course_review_course_id on course_review (course_id);
+create index idx_course_review_student_id on course_review (student_id);
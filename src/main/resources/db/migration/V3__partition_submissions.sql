@@ -0,0 +1,158 @@
+-- quiz_submission и submission почти только дописываются и растут без ограничений:
+-- переводим их на декларативное партиционирование по месяцам (quiz_submission - по taken_at,
+-- submission - по submitted_at). Будущие партиции создает, а старые отсоединяет в схему archive
+-- PartitionMaintenanceService через функции ниже. Строки вне созданных диапазонов попадают
+-- в default-партицию, чтобы вставка никогда не падала из-за отсутствующей партиции.
+
+create schema if not exists archive;
+
+-- Создает партицию <parent>_pYYYYMM на месяц [month_start, month_start + 1 month) по UTC.
+-- Возвращает false, если партиция уже есть
+create function create_monthly_partition(parent text, month_start date) returns boolean
+    language plpgsql as
+$$
+declare
+    partition_name text := parent || '_p' || to_char(month_start, 'YYYYMM');
+begin
+    if to_regclass(partition_name) is not null then
+        return false;
+    end if;
+    execute format('create table %I partition of %I for values from (%L) to (%L)',
+                   partition_name, parent,
+                   month_start::timestamp at time zone 'UTC',
+                   (month_start + interval '1 month')::timestamp at time zone 'UTC');
+    return true;
+end;
+$$;
+
+-- Отсоединяет партицию и переносит ее в схему archive. Внешние ключи архивной таблицы снимаются,
+-- чтобы архив не мешал удалять курсы, задания и пользователей
+create function archive_partition(parent text, partition_name text) returns void
+    language plpgsql as
+$$
+declare
+    fk record;
+begin
+    execute format('alter table %I detach partition %I', parent, partition_name);
+    for fk in select conname from pg_constraint where conrelid = partition_name::regclass and contype = 'f'
+        loop
+            execute format('alter table %I drop constraint %I', partition_name, fk.conname);
+        end loop;
+    execute format('alter table %I set schema archive', partition_name);
+end;
+$$;
+
+-- === quiz_submission ===
+
+alter table quiz_submission rename to quiz_submission_unpartitioned;
+alter table quiz_submission_unpartitioned drop constraint pk_quiz_submission;
+drop index idx_quiz_submission_quiz_id_id;
+drop index idx_quiz_submission_student_id;
+
+-- Ключ партиционирования обязан входить в первичный ключ
+create table quiz_submission (
+    id         bigint                      not null,
+    quiz_id    bigint                      not null,
+    student_id bigint                      not null,
+    score      integer,
+    taken_at   timestamp(6) with time zone not null,
+    constraint pk_quiz_submission primary key (id, taken_at),
+    constraint fk_quiz_submission_quiz foreign key (quiz_id) references quiz (id),
+    constraint fk_quiz_submission_student foreign key (student_id) references app_user (id)
+) partition by range (taken_at);
+
+-- Индексы партиционированной таблицы создаются в каждой партиции: обслуживание (vacuum, reindex)
+-- идет по одной партиции, а не по всей истории
+create index idx_quiz_submission_quiz_id_id on quiz_submission (quiz_id, id);
+create index idx_quiz_submission_student_id_taken_at on quiz_submission (student_id, taken_at);
+
+create table quiz_submission_default partition of quiz_submission default;
+
+select create_monthly_partition('quiz_submission', month::date)
+from generate_series(
+             date_trunc('month', coalesce((select min(taken_at) from quiz_submission_unpartitioned), now())
+                 at time zone 'UTC'),
+             date_trunc('month', now() at time zone 'UTC') + interval '3 months',
+             interval '1 month') as month;
+
+insert into quiz_submission (id, quiz_id, student_id, score, taken_at)
+select id, quiz_id, student_id, score, coalesce(taken_at, now())
+from quiz_submission_unpartitioned;
+
+drop table quiz_submission_unpartitioned;
+
+-- === submission ===
+
+alter table submission rename to submission_unpartitioned;
+alter table submission_unpartitioned drop constraint pk_submission;
+alter table submission_unpartitioned drop constraint uk_submission_student_id_assignment_id;
+drop index idx_submission_assignment_id_id;
+
+create table submission (
+    id            bigint                      not null,
+    assignment_id bigint                      not null,
+    student_id    bigint                      not null,
+    submitted_at  timestamp(6) with time zone not null,
+    content       text,
+    score         integer,
+    feedback      text,
+    constraint pk_submission primary key (id, submitted_at),
+    constraint fk_submission_assignment foreign key (assignment_id) references assignment (id),
+    constraint fk_submission_student foreign key (student_id) references app_user (id)
+) partition by range (submitted_at);
+
+create index idx_submission_assignment_id_id on submission (assignment_id, id);
+create index idx_submission_student_id_assignment_id on submission (student_id, assignment_id);
+
+create table submission_default partition of submission default;
+
+select create_monthly_partition('submission', month::date)
+from generate_series(
+             date_trunc('month', coalesce((select min(submitted_at) from submission_unpartitioned), now())
+                 at time zone 'UTC'),
+             date_trunc('month', now() at time zone 'UTC') + interval '3 months',
+             interval '1 month') as month;
+
+-- Уникальный индекс партиционированной таблицы обязан включать submitted_at, поэтому правило
+-- "одна сдача на студента и задание" держит отдельная непартиционированная таблица ключей.
+-- Ключи архивных сдач остаются: повторно сдать задание после архивации тоже нельзя
+create table submission_key (
+    student_id    bigint not null,
+    assignment_id bigint not null,
+    constraint pk_submission_key primary key (student_id, assignment_id)
+);
+
+create function submission_key_sync() returns trigger
+    language plpgsql as
+$$
+begin
+    if tg_op in ('UPDATE', 'DELETE') then
+        delete from submission_key where student_id = old.student_id and assignment_id = old.assignment_id;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        -- Повторная пара дает unique_violation, как раньше уникальное ограничение submission
+        insert into submission_key (student_id, assignment_id) values (new.student_id, new.assignment_id);
+    end if;
+    return null;
+end;
+$$;
+
+create trigger trg_submission_key_insert
+    after insert on submission
+    for each row execute function submission_key_sync();
+
+create trigger trg_submission_key_delete
+    after delete on submission
+    for each row execute function submission_key_sync();
+
+create trigger trg_submission_key_update
+    after update of student_id, assignment_id on submission
+    for each row
+    when (old.student_id is distinct from new.student_id or old.assignment_id is distinct from new.assignment_id)
+    execute function submission_key_sync();
+
+insert into submission (id, assignment_id, student_id, submitted_at, content, score, feedback)
+select id, assignment_id, student_id, coalesce(submitted_at, now()), content, score, feedback
+from submission_unpartitioned;
+
+drop table submission_unpartitioned;
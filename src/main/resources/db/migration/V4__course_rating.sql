@@ -0,0 +1,35 @@
+-- Агрегаты оценок курса: число отзывов, сумма оценок и гистограмма по звездам.
+-- Строка обновляется инкрементально в той же транзакции, что и отзыв (CourseReviewService),
+-- поэтому средний рейтинг и распределение читаются без сканирования course_review.
+-- Отдельная таблица, а не колонки course: запись отзыва не сбрасывает кеш второго уровня курса
+-- и не блокирует строку course для остальных изменений
+
+alter table course_review
+    add constraint ck_course_review_rating check (rating between 1 and 5);
+
+create table course_rating (
+    course_id    bigint not null,
+    review_count bigint not null default 0,
+    rating_sum   bigint not null default 0,
+    stars_1      bigint not null default 0,
+    stars_2      bigint not null default 0,
+    stars_3      bigint not null default 0,
+    stars_4      bigint not null default 0,
+    stars_5      bigint not null default 0,
+    constraint pk_course_rating primary key (course_id),
+    constraint fk_course_rating_course foreign key (course_id) references course (id) on delete cascade
+);
+
+-- Отзывы без оценки в агрегат не входят
+insert into course_rating (course_id, review_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+select course_id,
+       count(*),
+       sum(rating),
+       count(*) filter (where rating = 1),
+       count(*) filter (where rating = 2),
+       count(*) filter (where rating = 3),
+       count(*) filter (where rating = 4),
+       count(*) filter (where rating = 5)
+from course_review
+where rating is not null
+group by course_id;
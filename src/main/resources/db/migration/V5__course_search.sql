@@ -0,0 +1,96 @@
+-- Полнотекстовый поиск по каталогу курсов: название, описание, категория и теги.
+-- Сгенерированная колонка может ссылаться только на свою строку, поэтому названия категории
+-- и тегов денормализованы в course.search_terms и поддерживаются триггерами.
+-- Конфигурация russian: кириллица стеммится русским словарем, латиница - английским
+
+alter table course add column search_terms text;
+
+-- Категория и теги курса одной строкой
+create function course_search_terms(p_course_id bigint, p_category_id bigint) returns text
+    language sql stable as
+$$
+select concat_ws(' ',
+                 (select name from category where id = p_category_id),
+                 (select string_agg(t.name, ' ')
+                  from course_tag ct
+                           join tag t on t.id = ct.tag_id
+                  where ct.course_id = p_course_id))
+$$;
+
+update course set search_terms = course_search_terms(id, category_id);
+
+-- Вес A - название, B - описание, C - категория и теги
+alter table course add column search_vector tsvector generated always as (
+    setweight(to_tsvector('russian'::regconfig, coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('russian'::regconfig, coalesce(description, '')), 'B') ||
+    setweight(to_tsvector('russian'::regconfig, coalesce(search_terms, '')), 'C')
+) stored;
+
+create index idx_course_search_vector on course using gin (search_vector);
+
+-- Курс: при вставке и смене категории
+create function course_search_terms_on_course() returns trigger
+    language plpgsql as
+$$
+begin
+    new.search_terms := course_search_terms(new.id, new.category_id);
+    return new;
+end;
+$$;
+
+create trigger trg_course_search_terms
+    before insert or update of category_id on course
+    for each row execute function course_search_terms_on_course();
+
+-- Привязка и отвязка тегов
+create function course_search_terms_on_course_tag() returns trigger
+    language plpgsql as
+$$
+declare
+    changed_course_id bigint := case when tg_op = 'DELETE' then old.course_id else new.course_id end;
+begin
+    update course
+    set search_terms = course_search_terms(id, category_id)
+    where id = changed_course_id;
+    return null;
+end;
+$$;
+
+create trigger trg_course_tag_search_terms
+    after insert or delete on course_tag
+    for each row execute function course_search_terms_on_course_tag();
+
+-- Переименование тега или категории
+create function course_search_terms_on_tag() returns trigger
+    language plpgsql as
+$$
+begin
+    update course c
+    set search_terms = course_search_terms(c.id, c.category_id)
+    where c.id in (select course_id from course_tag where tag_id = new.id);
+    return null;
+end;
+$$;
+
+create trigger trg_tag_search_terms
+    after update of name on tag
+    for each row
+    when (old.name is distinct from new.name)
+    execute function course_search_terms_on_tag();
+
+create function course_search_terms_on_category() returns trigger
+    language plpgsql as
+$$
+begin
+    update course
+    set search_terms = course_search_terms(id, category_id)
+    where category_id = new.id;
+    return null;
+end;
+$$;
+
+create trigger trg_category_search_terms
+    after update of name on category
+    for each row
+    when (old.name is distinct from new.name)
+    execute function course_search_terms_on_category();
@@ -0,0 +1,40 @@
+-- Сдача задания одним INSERT ... ON CONFLICT: SubmissionRepositoryCustomImpl резервирует пару
+-- (студент, задание) в submission_key вместе с id будущей сдачи и в том же запросе вставляет саму сдачу.
+-- Триггер должен узнать такую резервацию и не считать ее дубликатом, поэтому ключ хранит id сдачи.
+-- У ключей сдач из уже архивных партиций submission_id остается пустым
+
+alter table submission_key add column submission_id bigint;
+
+update submission_key k
+set submission_id = s.id
+from submission s
+where s.student_id = k.student_id
+  and s.assignment_id = k.assignment_id;
+
+create or replace function submission_key_sync() returns trigger
+    language plpgsql as
+$$
+begin
+    if tg_op in ('UPDATE', 'DELETE') then
+        delete from submission_key where student_id = old.student_id and assignment_id = old.assignment_id;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into submission_key (student_id, assignment_id, submission_id)
+        values (new.student_id, new.assignment_id, new.id)
+        on conflict (student_id, assignment_id) do nothing;
+        -- Пара уже занята: допустима только резервация под эту же сдачу,
+        -- иначе unique_violation, как раньше уникальное ограничение submission
+        if not found and not exists(select 1
+                                    from submission_key
+                                    where student_id = new.student_id
+                                      and assignment_id = new.assignment_id
+                                      and submission_id = new.id) then
+            raise unique_violation using
+                message = format('duplicate key value violates unique constraint "pk_submission_key": (%s, %s)',
+                                 new.student_id, new.assignment_id),
+                constraint = 'pk_submission_key';
+        end if;
+    end if;
+    return null;
+end;
+$$;
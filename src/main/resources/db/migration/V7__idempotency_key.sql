@@ -0,0 +1,15 @@
+-- Ответы на POST-запросы с заголовком Idempotency-Key для JdbcIdempotencyStore
+-- (gigalearn.idempotency.store=jdbc - общий для нескольких экземпляров приложения).
+-- status пустой, пока первый запрос с этим ключом еще выполняется
+
+create table idempotency_key (
+    key          varchar(255)                not null,
+    request_hash bytea                       not null,
+    status       integer,
+    content_type varchar(255),
+    body         bytea,
+    expires_at   timestamp(6) with time zone not null,
+    constraint pk_idempotency_key primary key (key)
+);
+
+create index idx_idempotency_key_expires_at on idempotency_key (expires_at);
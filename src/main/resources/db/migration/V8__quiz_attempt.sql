@@ -0,0 +1,27 @@
+-- Попытки прохождения квиза с ограничением по времени (QuizAttemptService).
+-- Открытая попытка - finished_at is null; дедлайны открытых попыток держит в памяти колесо таймеров,
+-- таблица нужна, чтобы восстановить их после перезапуска. Попытки - рабочее состояние, а не история,
+-- поэтому удаляются вместе с квизом и студентом
+
+create sequence quiz_attempt_seq start with 1 increment by 50;
+
+create table quiz_attempt (
+    id          bigint                      not null,
+    quiz_id     bigint                      not null,
+    student_id  bigint                      not null,
+    started_at  timestamp(6) with time zone not null,
+    deadline_at timestamp(6) with time zone,
+    finished_at timestamp(6) with time zone,
+    constraint pk_quiz_attempt primary key (id),
+    constraint fk_quiz_attempt_quiz foreign key (quiz_id) references quiz (id) on delete cascade,
+    constraint fk_quiz_attempt_student foreign key (student_id) references app_user (id) on delete cascade
+);
+
+-- Не больше одной открытой попытки студента на квиз
+create unique index uk_quiz_attempt_open on quiz_attempt (quiz_id, student_id) where finished_at is null;
+
+create index idx_quiz_attempt_student_id on quiz_attempt (student_id);
+
+-- Восстановление таймеров при старте: только открытые попытки с дедлайном
+create index idx_quiz_attempt_open_deadline on quiz_attempt (deadline_at)
+    where finished_at is null and deadline_at is not null;
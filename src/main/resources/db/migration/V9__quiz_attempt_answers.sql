@@ -0,0 +1,3 @@
+-- Автосохранение ответов открытой попытки (QuizAttemptAnswerBuffer): снимок {"questionId": [optionId, ...]}.
+-- Изменения копятся в памяти и дописываются в снимок пачками (answers || delta), при сдаче снимок оценивается
+alter table quiz_attempt add column answers jsonb;
@@ -0,0 +1,32 @@
+-- Callback Flyway перед каждым migrate: не версионируется и не имеет контрольной суммы.
+-- База, созданная Hibernate (ddl-auto) и принятая за версию 1 (baseline-on-migrate в dev и loadgen),
+-- называет ключи сдач <таблица>_pkey и UK<хеш>, а V3 снимает их по именам из V1. До V3 приводим
+-- имена к V1; после партиционирования (relkind 'p') и на пустой базе блок ничего не делает
+
+do
+$$
+declare
+    c record;
+begin
+    for c in select cls.relname, con.conname,
+                    case
+                        when con.contype = 'p' then 'pk_' || cls.relname
+                        else 'uk_submission_student_id_assignment_id'
+                        end as v1_name
+             from pg_constraint con
+             join pg_class cls on cls.oid = con.conrelid
+             where cls.oid in (to_regclass('quiz_submission'), to_regclass('submission'))
+               and cls.relkind = 'r'
+               and (con.contype = 'p'
+                 or (con.contype = 'u' and cls.relname = 'submission'
+                     and (select array_agg(att.attname::text order by att.attname)
+                          from pg_attribute att
+                          where att.attrelid = cls.oid and att.attnum = any (con.conkey))
+                         = array ['assignment_id', 'student_id']))
+        loop
+            if c.conname <> c.v1_name then
+                execute format('alter table %I rename constraint %I to %I', c.relname, c.conname, c.v1_name);
+            end if;
+        end loop;
+end;
+$$;
@@ -0,0 +1,85 @@
+package ru.vspochernin.gigalearn.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.config.IdempotencyStore.IdempotencyRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class InMemoryIdempotencyStoreTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        registry.add("gigalearn.idempotency.max-entries", () -> "3");
+    }
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Test
+    void testOldestKeyIsEvictedWhenStoreIsFull() {
+        // Given: Хранилище на 3 ключа заполнено
+        assertThat(store).isInstanceOf(InMemoryIdempotencyStore.class);
+        for (int i = 1; i <= 3; i++) {
+            assertThat(store.reserve("key-" + i, bytes("request"), inMinutes(1))).isTrue();
+            store.complete("key-" + i, new IdempotencyRecord(bytes("request"), 201, null, new byte[0]),
+                    inMinutes(60));
+        }
+
+        // When: Четвертый ключ
+        assertThat(store.reserve("key-4", bytes("request"), inMinutes(1))).isTrue();
+
+        // Then: Вытеснен самый старый ключ, его можно занять заново; остальные на месте
+        assertThat(store.find("key-1")).isEmpty();
+        assertThat(store.find("key-2")).isPresent();
+        assertThat(store.find("key-3")).isPresent();
+        assertThat(store.find("key-4")).hasValueSatisfying(record -> assertThat(record.inProgress()).isTrue());
+
+        // When: Завершение не двигает ключ в очереди вытеснения
+        store.complete("key-2", new IdempotencyRecord(bytes("request"), 201, null, new byte[0]), inMinutes(60));
+        assertThat(store.reserve("key-1", bytes("request"), inMinutes(1))).isTrue();
+
+        // Then
+        assertThat(store.find("key-2")).isEmpty();
+        assertThat(store.find("key-3")).isPresent();
+        assertThat(store.find("key-4")).isPresent();
+        assertThat(store.find("key-1")).isPresent();
+    }
+
+    // === Helper methods ===
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Instant inMinutes(long minutes) {
+        return Instant.now().plus(Duration.ofMinutes(minutes));
+    }
+}
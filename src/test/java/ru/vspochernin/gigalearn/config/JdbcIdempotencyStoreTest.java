@@ -0,0 +1,116 @@
+package ru.vspochernin.gigalearn.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.config.IdempotencyStore.IdempotencyRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class JdbcIdempotencyStoreTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        registry.add("gigalearn.idempotency.store", () -> "jdbc");
+    }
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from idempotency_key");
+    }
+
+    @Test
+    void testReserveCompleteAndFind() {
+        // Given
+        assertThat(store).isInstanceOf(JdbcIdempotencyStore.class);
+        byte[] hash = bytes("request");
+
+        // When: Ключ занят первым запросом
+        assertThat(store.reserve("key-1", hash, inMinutes(1))).isTrue();
+
+        // Then: Повторное резервирование не проходит, запись видна как выполняющаяся
+        assertThat(store.reserve("key-1", bytes("other"), inMinutes(1))).isFalse();
+        assertThat(store.find("key-1")).hasValueSatisfying(record -> {
+            assertThat(record.inProgress()).isTrue();
+            assertThat(record.requestHash()).isEqualTo(hash);
+        });
+
+        // When: Запрос завершился
+        store.complete("key-1", new IdempotencyRecord(hash, 201, "application/json", bytes("{\"id\":1}")),
+                inMinutes(60));
+
+        // Then: Сохраненный ответ доступен для повтора; release его уже не снимает
+        store.release("key-1");
+        IdempotencyRecord record = store.find("key-1").orElseThrow();
+        assertThat(record.inProgress()).isFalse();
+        assertThat(record.status()).isEqualTo(201);
+        assertThat(record.contentType()).isEqualTo("application/json");
+        assertThat(new String(record.body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void testReleaseAndExpiryFreeTheKey() {
+        // Given: Упавший запрос снимает резервацию
+        assertThat(store.reserve("key-1", bytes("request"), inMinutes(1))).isTrue();
+        store.release("key-1");
+        assertThat(store.find("key-1")).isEmpty();
+        assertThat(store.reserve("key-1", bytes("request"), inMinutes(1))).isTrue();
+
+        // Given: Просроченные записи
+        store.complete("key-1", new IdempotencyRecord(bytes("request"), 201, null, new byte[0]),
+                Instant.now().minusSeconds(1));
+        assertThat(store.reserve("key-2", bytes("request"), Instant.now().minusSeconds(1))).isTrue();
+
+        // Then: Просроченная запись не видна и ключ можно занять заново
+        assertThat(store.find("key-1")).isEmpty();
+        assertThat(store.reserve("key-1", bytes("retry"), inMinutes(1))).isTrue();
+
+        // When/Then: Очистка удаляет только просроченное
+        assertThat(store.evictExpired()).isEqualTo(1);
+        assertThat(store.find("key-1")).isPresent();
+    }
+
+    // === Helper methods ===
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Instant inMinutes(long minutes) {
+        return Instant.now().plus(Duration.ofMinutes(minutes));
+    }
+}
@@ -0,0 +1,84 @@
+package ru.vspochernin.gigalearn.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.entity.Role;
+import ru.vspochernin.gigalearn.entity.User;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles({"test", "loadgen"})
+@Testcontainers
+class LoadDataGeneratorTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Уменьшенный масштаб генерации
+        registry.add("gigalearn.loadgen.courses", () -> "50");
+        registry.add("gigalearn.loadgen.users", () -> "1005");
+        registry.add("gigalearn.loadgen.enrollments", () -> "5000");
+        registry.add("gigalearn.loadgen.quiz-submissions", () -> "20000");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void testGeneratesConfiguredScaleWithSkewedPopularity() {
+        // Then: Объемы соответствуют настройкам
+        assertThat(count("course")).isEqualTo(50);
+        assertThat(count("app_user")).isEqualTo(1005);
+        assertThat(count("module")).isEqualTo(50 * 5);
+        assertThat(count("lesson")).isEqualTo(50 * 5 * 4);
+        assertThat(count("quiz")).isEqualTo(50);
+        assertThat(count("answer_option")).isEqualTo(50 * 10 * 4);
+        assertThat(count("enrollment")).isEqualTo(5000);
+        assertThat(count("quiz_submission")).isEqualTo(20000);
+
+        // Популярность курсов сильно перекошена: самый популярный курс набирает в разы больше среднего
+        Long topCourseSubmissions = jdbcTemplate.queryForObject(
+                "select max(cnt) from (select count(*) as cnt from quiz_submission group by quiz_id) t", Long.class);
+        assertThat(topCourseSubmissions).isGreaterThan(3 * 20000 / 50);
+    }
+
+    @Test
+    void testHibernateIdsContinueAfterGeneratedData() {
+        // When: Сохраняем пользователя через Hibernate после загрузки через COPY
+        User user = userRepository.save(
+                User.builder().name("New User").email("new@test.com").role(Role.STUDENT).build()
+        );
+
+        // Then: Sequence сдвинут за загруженные id, конфликта нет
+        assertThat(user.getId()).isGreaterThan(1005);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+}
@@ -0,0 +1,143 @@
+package ru.vspochernin.gigalearn.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.exception.DuplicateEnrollmentException;
+import ru.vspochernin.gigalearn.repository.*;
+import ru.vspochernin.gigalearn.service.EnrollmentService;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@Testcontainers
+class ServiceMetricsAspectTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Course course;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем данные
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        student = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        );
+    }
+
+    @Test
+    void testServiceCallsAreTimedPerMethodAndBucket() {
+        // When: Успешная запись и повторная (с ошибкой)
+        enrollmentService.enrollStudent(course.getId(), student.getId());
+        assertThatThrownBy(() -> enrollmentService.enrollStudent(course.getId(), student.getId()))
+                .isInstanceOf(DuplicateEnrollmentException.class);
+
+        // Then: Общий таймер сервисного слоя различает исходы по типу исключения
+        assertThat(serviceTimer("none").count()).isEqualTo(1);
+        assertThat(serviceTimer(DuplicateEnrollmentException.class.getSimpleName()).count()).isEqualTo(1);
+
+        // Then: Горячий метод дополнительно разбит по бакету курса
+        Timer bucketed = meterRegistry.get(ServiceMetricsAspect.BUCKETED_TIMER)
+                .tag("class", "EnrollmentService")
+                .tag("method", "enrollStudent")
+                .tag("bucket", String.valueOf(Math.floorMod(course.getId(), 16)))
+                .tag("exception", "none")
+                .timer();
+        assertThat(bucketed.count()).isEqualTo(1);
+        assertThat(bucketed.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
+    @Test
+    void testPrometheusEndpointExportsServiceRepositoryPoolAndHibernateMetrics() throws Exception {
+        // Given: Хотя бы один вызов сервиса и репозитория
+        enrollmentService.getStudentsForCourse(course.getId());
+
+        // When/Then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("gigalearn_service_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_entities_loads")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests")));
+    }
+
+    private Timer serviceTimer(String exception) {
+        return meterRegistry.get(ServiceMetricsAspect.SERVICE_TIMER)
+                .tag("class", "EnrollmentService")
+                .tag("method", "enrollStudent")
+                .tag("exception", exception)
+                .timer();
+    }
+}
@@ -1,6 +1,7 @@
 package ru.vspochernin.gigalearn.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,16 +15,21 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
-import ru.vspochernin.gigalearn.dto.CourseCreateDto;
-import ru.vspochernin.gigalearn.dto.ModuleCreateDto;
+import ru.vspochernin.gigalearn.dto.*;
 import ru.vspochernin.gigalearn.entity.Category;
 import ru.vspochernin.gigalearn.entity.Role;
 import ru.vspochernin.gigalearn.entity.Tag;
 import ru.vspochernin.gigalearn.entity.User;
 import ru.vspochernin.gigalearn.repository.*;
+import ru.vspochernin.gigalearn.support.SqlStatementBudget;
+import ru.vspochernin.gigalearn.support.SqlStatementCounter;
+import ru.vspochernin.gigalearn.support.SqlStatements;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -47,6 +53,10 @@ class CourseControllerTest {
         registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
         registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
         registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Подсчет SQL для бюджетов запросов
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                SqlStatementCounter.class::getName);
     }
 
     @Autowired
@@ -73,6 +83,9 @@ class CourseControllerTest {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    private CourseReviewRepository courseReviewRepository;
+
     private Long teacherId;
     private Long categoryId;
     private Long tagId;
@@ -81,6 +94,7 @@ class CourseControllerTest {
     void setUp() {
         // Очищаем данные
         enrollmentRepository.deleteAll();
+        courseReviewRepository.deleteAll();
         moduleRepository.deleteAll();
         courseRepository.deleteAll();
         tagRepository.deleteAll();
@@ -151,6 +165,144 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.message").value("Validation failed"));
     }
 
+    @Test
+    void testImportCourse() throws Exception {
+        // Given: Дерево курса - 2 модуля по 3 урока с заданием, у второго модуля квиз
+        List<ModuleImportDto> modules = new ArrayList<>();
+        for (int m = 1; m <= 2; m++) {
+            List<LessonImportDto> lessons = new ArrayList<>();
+            for (int l = 1; l <= 3; l++) {
+                lessons.add(LessonImportDto.builder()
+                        .title("Lesson " + m + "." + l)
+                        .content("Content")
+                        .assignments(List.of(AssignmentCreateDto.builder().title("Homework").maxScore(10).build()))
+                        .build());
+            }
+            modules.add(ModuleImportDto.builder()
+                    .title("Module " + m)
+                    .orderIndex(m)
+                    .lessons(lessons)
+                    .build());
+        }
+        modules.get(1).setQuiz(QuizImportDto.builder()
+                .title("Quiz")
+                .timeLimitSeconds(600)
+                .questions(List.of(
+                        QuestionImportDto.builder().text("Q1").options(List.of(
+                                AnswerOptionCreateDto.builder().text("A").isCorrect(true).build(),
+                                AnswerOptionCreateDto.builder().text("B").isCorrect(false).build()
+                        )).build(),
+                        QuestionImportDto.builder().text("Q2").options(List.of(
+                                AnswerOptionCreateDto.builder().text("C").isCorrect(false).build(),
+                                AnswerOptionCreateDto.builder().text("D").isCorrect(true).build()
+                        )).build()
+                ))
+                .build());
+
+        CourseImportDto dto = CourseImportDto.builder()
+                .title("Imported Course")
+                .categoryId(categoryId)
+                .teacherId(teacherId)
+                .tagIds(Set.of(tagId))
+                .modules(modules)
+                .build();
+
+        // When/Then
+        mockMvc.perform(post("/api/courses/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.courseId").isNumber())
+                .andExpect(jsonPath("$.modules").value(2))
+                .andExpect(jsonPath("$.lessons").value(6))
+                .andExpect(jsonPath("$.assignments").value(6))
+                .andExpect(jsonPath("$.quizzes").value(1))
+                .andExpect(jsonPath("$.questions").value(2))
+                .andExpect(jsonPath("$.answerOptions").value(4));
+    }
+
+    @Test
+    void testImportCourseWithUnknownTag() throws Exception {
+        // Given
+        CourseImportDto dto = CourseImportDto.builder()
+                .title("Imported Course")
+                .categoryId(categoryId)
+                .teacherId(teacherId)
+                .tagIds(Set.of(tagId, 99999L))
+                .build();
+
+        // When/Then
+        mockMvc.perform(post("/api/courses/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Tag not found: 99999")));
+    }
+
+    @Test
+    void testImportCourseStream() throws Exception {
+        // Given: Документ крупнее одной порции flush (2 модуля по 60 уроков)
+        List<ModuleImportDto> modules = new ArrayList<>();
+        for (int m = 1; m <= 2; m++) {
+            List<LessonImportDto> lessons = new ArrayList<>();
+            for (int l = 1; l <= 60; l++) {
+                lessons.add(LessonImportDto.builder()
+                        .title("Lesson " + m + "." + l)
+                        .content("Long lesson content ".repeat(100))
+                        .assignments(List.of(AssignmentCreateDto.builder().title("Homework").build()))
+                        .build());
+            }
+            modules.add(ModuleImportDto.builder()
+                    .title("Module " + m)
+                    .orderIndex(m)
+                    .lessons(lessons)
+                    .quiz(QuizImportDto.builder()
+                            .title("Quiz " + m)
+                            .questions(List.of(QuestionImportDto.builder().text("Q").options(List.of(
+                                    AnswerOptionCreateDto.builder().text("A").isCorrect(true).build()
+                            )).build()))
+                            .build())
+                    .build());
+        }
+
+        CourseImportDto dto = CourseImportDto.builder()
+                .title("Streamed Course")
+                .categoryId(categoryId)
+                .teacherId(teacherId)
+                .tagIds(Set.of(tagId))
+                .modules(modules)
+                .build();
+
+        // When/Then
+        mockMvc.perform(post("/api/courses/import/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.courseId").isNumber())
+                .andExpect(jsonPath("$.modules").value(2))
+                .andExpect(jsonPath("$.lessons").value(120))
+                .andExpect(jsonPath("$.assignments").value(120))
+                .andExpect(jsonPath("$.quizzes").value(2))
+                .andExpect(jsonPath("$.questions").value(2))
+                .andExpect(jsonPath("$.answerOptions").value(2));
+    }
+
+    @Test
+    void testImportCourseStreamRejectsFieldAfterModules() throws Exception {
+        // Given: Поле курса после массива modules нельзя применить при потоковом чтении
+        String json = String.format(
+                "{\"categoryId\": %d, \"teacherId\": %d, \"modules\": [], \"title\": \"Late title\"}",
+                categoryId, teacherId
+        );
+
+        // When/Then
+        mockMvc.perform(post("/api/courses/import/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("must precede modules")));
+    }
+
     @Test
     void testGetCourse() throws Exception {
         // Given: Создаем курс через репозиторий
@@ -176,6 +328,86 @@ class CourseControllerTest {
     }
 
     @Test
+    void testGetCourseReturnsContentTree() throws Exception {
+        // Given: Курс с двумя модулями, добавленными в обратном порядке
+        Category category = categoryRepository.findById(categoryId).orElseThrow();
+        User teacher = userRepository.findById(teacherId).orElseThrow();
+
+        var course = courseRepository.save(
+                ru.vspochernin.gigalearn.entity.Course.builder()
+                        .title("Tree Course")
+                        .category(category)
+                        .teacher(teacher)
+                        .build()
+        );
+        for (int orderIndex = 2; orderIndex >= 1; orderIndex--) {
+            moduleRepository.save(
+                    ru.vspochernin.gigalearn.entity.Module.builder()
+                            .title("Module " + orderIndex)
+                            .orderIndex(orderIndex)
+                            .course(course)
+                            .build()
+            );
+        }
+
+        // When/Then: Модули возвращаются деревом в порядке orderIndex
+        mockMvc.perform(get("/api/courses/" + course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules", hasSize(2)))
+                .andExpect(jsonPath("$.modules[0].title").value("Module 1"))
+                .andExpect(jsonPath("$.modules[0].lessons", hasSize(0)))
+                .andExpect(jsonPath("$.modules[0].quiz").value(nullValue()))
+                .andExpect(jsonPath("$.modules[1].title").value("Module 2"));
+    }
+
+    @Test
+    void testGetCourseTreeWithinStatementBudget() throws Exception {
+        // Given: 3 модуля по 3 урока с заданием, у каждого модуля квиз
+        List<ModuleImportDto> modules = new ArrayList<>();
+        for (int m = 1; m <= 3; m++) {
+            List<LessonImportDto> lessons = new ArrayList<>();
+            for (int l = 1; l <= 3; l++) {
+                lessons.add(LessonImportDto.builder()
+                        .title("Lesson " + m + "." + l)
+                        .assignments(List.of(AssignmentCreateDto.builder().title("Homework").maxScore(10).build()))
+                        .build());
+            }
+            modules.add(ModuleImportDto.builder()
+                    .title("Module " + m)
+                    .orderIndex(m)
+                    .lessons(lessons)
+                    .quiz(QuizImportDto.builder().title("Quiz " + m).build())
+                    .build());
+        }
+
+        CourseImportDto dto = CourseImportDto.builder()
+                .title("Budget Course")
+                .categoryId(categoryId)
+                .teacherId(teacherId)
+                .tagIds(Set.of(tagId))
+                .modules(modules)
+                .build();
+
+        String imported = mockMvc.perform(post("/api/courses/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Number courseId = JsonPath.read(imported, "$.courseId");
+
+        // When/Then: Дерево читается фиксированным числом запросов, независимо от числа модулей и уроков;
+        // пятый запрос - агрегат оценок курса
+        SqlStatements.assertAtMost(5, () -> mockMvc.perform(get("/api/courses/" + courseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tagNames", hasSize(1)))
+                .andExpect(jsonPath("$.modules", hasSize(3)))
+                .andExpect(jsonPath("$.modules[2].lessons", hasSize(3)))
+                .andExpect(jsonPath("$.modules[2].lessons[0].assignments", hasSize(1)))
+                .andExpect(jsonPath("$.modules[2].quiz.title").value("Quiz 3")));
+    }
+
+    @Test
+    @SqlStatementBudget(max = 1)
     void testGetCourseNotFound() throws Exception {
         // When/Then
         mockMvc.perform(get("/api/courses/99999"))
@@ -317,5 +549,190 @@ class CourseControllerTest {
                         .param("userId", student.getId().toString()))
                 .andExpect(status().isNoContent());
     }
-}
 
+    @Test
+    void testListEnrollmentsWithPageTokens() throws Exception {
+        // Given: Курс и 5 записанных студентов
+        Category category = categoryRepository.findById(categoryId).orElseThrow();
+        User teacher = userRepository.findById(teacherId).orElseThrow();
+
+        var course = courseRepository.save(
+                ru.vspochernin.gigalearn.entity.Course.builder()
+                        .title("Test Course")
+                        .category(category)
+                        .teacher(teacher)
+                        .build()
+        );
+
+        for (int i = 1; i <= 5; i++) {
+            User student = userRepository.save(
+                    User.builder()
+                            .name("Student " + i)
+                            .email("student" + i + "@test.com")
+                            .role(Role.STUDENT)
+                            .build()
+            );
+            mockMvc.perform(post("/api/courses/" + course.getId() + "/enroll")
+                            .param("userId", student.getId().toString()))
+                    .andExpect(status().isCreated());
+        }
+
+        // When/Then: Первая страница
+        String firstPage = mockMvc.perform(get("/api/courses/" + course.getId() + "/enrollments")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].studentName").value("Student 1"))
+                .andExpect(jsonPath("$.items[0].courseTitle").value("Test Course"))
+                .andExpect(jsonPath("$.nextPageToken").isString())
+                .andReturn().getResponse().getContentAsString();
+        String secondToken = JsonPath.read(firstPage, "$.nextPageToken");
+
+        // When/Then: Вторая страница
+        String secondPage = mockMvc.perform(get("/api/courses/" + course.getId() + "/enrollments")
+                        .param("size", "2")
+                        .param("pageToken", secondToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].studentName").value("Student 3"))
+                .andReturn().getResponse().getContentAsString();
+        String thirdToken = JsonPath.read(secondPage, "$.nextPageToken");
+
+        // When/Then: Последняя страница без токена продолжения;
+        // студент и курс выбираются вместе с записью, без догрузки по одной строке
+        SqlStatements.assertAtMost(2, () -> mockMvc.perform(get("/api/courses/" + course.getId() + "/enrollments")
+                        .param("size", "2")
+                        .param("pageToken", thirdToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].studentName").value("Student 5"))
+                .andExpect(jsonPath("$.nextPageToken").value(nullValue())));
+    }
+
+    @Test
+    void testListEnrollmentsWithInvalidPageToken() throws Exception {
+        // Given
+        Category category = categoryRepository.findById(categoryId).orElseThrow();
+        User teacher = userRepository.findById(teacherId).orElseThrow();
+
+        var course = courseRepository.save(
+                ru.vspochernin.gigalearn.entity.Course.builder()
+                        .title("Test Course")
+                        .category(category)
+                        .teacher(teacher)
+                        .build()
+        );
+
+        // When/Then
+        mockMvc.perform(get("/api/courses/" + course.getId() + "/enrollments")
+                        .param("pageToken", "not-a-token"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid page token"));
+    }
+
+    @Test
+    void testReviewsUpdateCourseRating() throws Exception {
+        // Given: Курс и три студента
+        var course = createCourse("Rated Course");
+        List<User> students = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            students.add(userRepository.save(User.builder()
+                    .name("Student " + i)
+                    .email("student" + i + "@test.com")
+                    .role(Role.STUDENT)
+                    .build()));
+        }
+
+        // When: Оценки 5, 4, 4
+        List<Number> reviewIds = new ArrayList<>();
+        int[] ratings = {5, 4, 4};
+        for (int i = 0; i < ratings.length; i++) {
+            CourseReviewCreateDto review = CourseReviewCreateDto.builder()
+                    .studentId(students.get(i).getId())
+                    .rating(ratings[i])
+                    .comment("Review " + i)
+                    .build();
+            String response = mockMvc.perform(post("/api/courses/" + course.getId() + "/reviews")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(review)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            reviewIds.add(JsonPath.read(response, "$.id"));
+        }
+
+        // Then: Агрегат обновлен инкрементально
+        mockMvc.perform(get("/api/courses/" + course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rating.reviewCount").value(3))
+                .andExpect(jsonPath("$.rating.average").value(closeTo(13.0 / 3, 1e-9)))
+                .andExpect(jsonPath("$.rating.stars['4']").value(2))
+                .andExpect(jsonPath("$.rating.stars['5']").value(1))
+                .andExpect(jsonPath("$.rating.stars['1']").value(0));
+
+        // When: Удаляем пятерку
+        mockMvc.perform(delete("/api/courses/" + course.getId() + "/reviews/" + reviewIds.get(0)))
+                .andExpect(status().isNoContent());
+
+        // Then: Оценка вычтена из агрегата
+        mockMvc.perform(get("/api/courses/" + course.getId()))
+                .andExpect(jsonPath("$.rating.reviewCount").value(2))
+                .andExpect(jsonPath("$.rating.average").value(4.0))
+                .andExpect(jsonPath("$.rating.stars['5']").value(0));
+    }
+
+    @Test
+    void testAddReviewWithInvalidRating() throws Exception {
+        // Given
+        var course = createCourse("Rated Course");
+        CourseReviewCreateDto review = CourseReviewCreateDto.builder()
+                .studentId(teacherId)
+                .rating(6)
+                .build();
+
+        // When/Then
+        mockMvc.perform(post("/api/courses/" + course.getId() + "/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCatalogPageWithinStatementBudget() throws Exception {
+        // Given: 12 курсов, у каждого второго есть отзыв
+        for (int i = 1; i <= 12; i++) {
+            var course = createCourse("Catalog Course " + i);
+            if (i % 2 == 0) {
+                mockMvc.perform(post("/api/courses/" + course.getId() + "/reviews")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(CourseReviewCreateDto.builder()
+                                        .studentId(teacherId)
+                                        .rating(3)
+                                        .build())))
+                        .andExpect(status().isCreated());
+            }
+        }
+
+        // When/Then: Страница из 10 курсов - курсы, теги и агрегаты оценок, отзывы не читаются
+        List<String> statements = SqlStatements.assertAtMost(3, () -> mockMvc.perform(get("/api/courses")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(10)))
+                .andExpect(jsonPath("$.items[0].title").value("Catalog Course 1"))
+                .andExpect(jsonPath("$.items[0].rating.reviewCount").value(0))
+                .andExpect(jsonPath("$.items[0].rating.average").value(nullValue()))
+                .andExpect(jsonPath("$.items[1].rating.reviewCount").value(1))
+                .andExpect(jsonPath("$.items[1].rating.average").value(3.0))
+                .andExpect(jsonPath("$.nextPageToken").isString()));
+        assertThat(statements).noneMatch(sql -> sql.contains("course_review"));
+    }
+
+    private ru.vspochernin.gigalearn.entity.Course createCourse(String title) {
+        return courseRepository.save(
+                ru.vspochernin.gigalearn.entity.Course.builder()
+                        .title(title)
+                        .category(categoryRepository.findById(categoryId).orElseThrow())
+                        .teacher(userRepository.findById(teacherId).orElseThrow())
+                        .build()
+        );
+    }
+}
@@ -10,19 +10,29 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.config.IdempotencyFilter;
 import ru.vspochernin.gigalearn.dto.*;
 import ru.vspochernin.gigalearn.entity.*;
 import ru.vspochernin.gigalearn.repository.*;
+import ru.vspochernin.gigalearn.support.SqlStatementCounter;
+import ru.vspochernin.gigalearn.support.SqlStatements;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -45,6 +55,10 @@ class QuizControllerTest {
         registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
         registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
         registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Подсчет SQL для бюджетов запросов
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                SqlStatementCounter.class::getName);
     }
 
     @Autowired
@@ -264,6 +278,55 @@ class QuizControllerTest {
                 .andExpect(jsonPath("$.takenAt").isNotEmpty());
     }
 
+    @Test
+    void testTakeQuizWithinStatementBudget() throws Exception {
+        // Given: Квиз из 5 вопросов по 3 варианта
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Budget Quiz")
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+
+        Map<Long, List<Long>> answers = new HashMap<>();
+        for (int q = 1; q <= 5; q++) {
+            Question question = questionRepository.save(
+                    Question.builder().text("Question " + q).quiz(quiz).build()
+            );
+            for (int o = 1; o <= 3; o++) {
+                AnswerOption option = answerOptionRepository.save(
+                        AnswerOption.builder().text("Option " + o).isCorrect(o == 1).question(question).build()
+                );
+                if (o == 1) {
+                    answers.put(question.getId(), List.of(option.getId()));
+                }
+            }
+        }
+
+        TakeQuizDto dto = TakeQuizDto.builder()
+                .studentId(studentId)
+                .answersByQuestion(answers)
+                .build();
+        String body = objectMapper.writeValueAsString(dto);
+
+        // When/Then: Первое прохождение - студент, проверка квиза, ключ ответов одним запросом,
+        // квиз для ответа и вставка результата; число вопросов на количество запросов не влияет
+        SqlStatements.assertAtMost(5, () -> mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/take")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.score").value(5))
+                .andExpect(jsonPath("$.totalQuestions").value(5)));
+
+        // When/Then: Повторное прохождение берет ключ ответов из кэша
+        SqlStatements.assertAtMost(3, () -> mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/take")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.quizTitle").value("Budget Quiz"))
+                .andExpect(jsonPath("$.score").value(5)));
+    }
+
     @Test
     void testTakeQuizWithInvalidQuestionId() throws Exception {
         // Given: Создаем квиз без вопросов
@@ -286,5 +349,161 @@ class QuizControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value(containsString("does not belong to quiz")));
     }
-}
 
+    @Test
+    void testTakeQuizReplaysResponseForSameIdempotencyKey() throws Exception {
+        // Given: Квиз с одним вопросом
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Retry Quiz")
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+        Question question = questionRepository.save(
+                Question.builder().text("What is ORM?").quiz(quiz).build()
+        );
+        AnswerOption option = answerOptionRepository.save(
+                AnswerOption.builder().text("Object-Relational Mapping").isCorrect(true).question(question).build()
+        );
+        String body = objectMapper.writeValueAsString(TakeQuizDto.builder()
+                .studentId(studentId)
+                .answersByQuestion(Map.of(question.getId(), List.of(option.getId())))
+                .build());
+
+        MvcResult first = mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/take")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "take-" + quiz.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        // When/Then: Повтор с тем же ключом получает тот же ответ без обращений к базе
+        SqlStatements.assertAtMost(0, () -> mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/take")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "take-" + quiz.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().json(first.getResponse().getContentAsString(), JsonCompareMode.STRICT)));
+        assertThat(quizSubmissionRepository.findByQuizId(quiz.getId())).hasSize(1);
+
+        // When/Then: Тот же ключ с другим телом отклоняется
+        String otherBody = objectMapper.writeValueAsString(TakeQuizDto.builder()
+                .studentId(studentId)
+                .answersByQuestion(Map.of(question.getId(), List.of()))
+                .build());
+        mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/take")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "take-" + quiz.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(otherBody))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value(containsString("different request")));
+
+        // When/Then: Без ключа повтор, как и раньше, создает новое прохождение
+        mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/take")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+        assertThat(quizSubmissionRepository.findByQuizId(quiz.getId())).hasSize(2);
+    }
+
+    @Test
+    void testIdempotencyKeyIsLimitedToSubmissions() throws Exception {
+        // Given
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Retry Quiz")
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+        String questionBody = objectMapper.writeValueAsString(QuestionCreateDto.builder().text("What is ORM?").build());
+
+        // When/Then: Остальные POST ключ игнорируют - каждый запрос выполняется
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/questions")
+                            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "question-" + quiz.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(questionBody))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        }
+        assertThat(questionRepository.findByQuizId(quiz.getId())).hasSize(2);
+
+        // When/Then: Тело сдачи с ключом больше лимита отклоняется до контроллера
+        String oversizedBody = "{\"studentId\": " + studentId + ", \"comment\": \"" + "x".repeat(70_000) + "\"}";
+        mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/take")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "take-" + quiz.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(oversizedBody))
+                .andExpect(status().isPayloadTooLarge());
+        assertThat(quizSubmissionRepository.findByQuizId(quiz.getId())).isEmpty();
+    }
+
+    @Test
+    void testAutosaveAttemptAnswersWithoutDatabaseRoundTrips() throws Exception {
+        // Given: Квиз с ограничением по времени и открытая попытка
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Timed Quiz")
+                        .timeLimit(600)
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+        Question question = questionRepository.save(
+                Question.builder().text("What is ORM?").quiz(quiz).build()
+        );
+        AnswerOption correct = answerOptionRepository.save(
+                AnswerOption.builder().text("Object-Relational Mapping").isCorrect(true).question(question).build()
+        );
+        AnswerOption wrong = answerOptionRepository.save(
+                AnswerOption.builder().text("Object Request Model").isCorrect(false).question(question).build()
+        );
+        MvcResult started = mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/attempts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(QuizAttemptStartDto.builder().studentId(studentId).build())))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.deadlineAt").isNotEmpty())
+                .andReturn();
+        long attemptId = objectMapper.readTree(started.getResponse().getContentAsString()).get("id").asLong();
+        String answersUrl = "/api/quizzes/" + quiz.getId() + "/attempts/" + attemptId + "/answers";
+
+        // When: Первое автосохранение читает попытку и ключ ответов
+        mockMvc.perform(patch(answersUrl)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(answersBody(question.getId(), wrong.getId())))
+                .andExpect(status().isNoContent());
+
+        // Then: Следующие автосохранения копятся в памяти без единого SQL
+        SqlStatements.assertAtMost(0, () -> {
+            for (int i = 0; i < 10; i++) {
+                mockMvc.perform(patch(answersUrl)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(answersBody(question.getId(), i % 2 == 0 ? wrong.getId() : correct.getId())))
+                        .andExpect(status().isNoContent());
+            }
+        });
+
+        // When/Then: Сдача без ответов в запросе оценивает последний автосохраненный ответ
+        mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/attempts/" + attemptId + "/submit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                QuizAttemptSubmitDto.builder().answersByQuestion(Map.of()).build())))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.score").value(1))
+                .andExpect(jsonPath("$.totalQuestions").value(1));
+
+        // When/Then: Сданная попытка больше не принимает ответов
+        mockMvc.perform(patch(answersUrl)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(answersBody(question.getId(), wrong.getId())))
+                .andExpect(status().isConflict());
+    }
+
+    // === Helper methods ===
+
+    private String answersBody(Long questionId, Long optionId) throws Exception {
+        return objectMapper.writeValueAsString(QuizAttemptAnswersDto.builder()
+                .answersByQuestion(Map.of(questionId, List.of(optionId)))
+                .build());
+    }
+}
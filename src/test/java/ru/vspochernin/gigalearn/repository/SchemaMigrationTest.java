@@ -0,0 +1,184 @@
+package ru.vspochernin.gigalearn.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class SchemaMigrationTest {
+
+    // Hibernate называет первичный ключ <таблица>_pkey, а уникальные и внешние ключи - UK<хеш> и FK<хеш>
+    private static final String HIBERNATE_CONSTRAINT_NAMES_SQL = """
+            do
+            $$
+            declare
+                c record;
+            begin
+                for c in select con.conname, con.contype, cls.relname
+                         from pg_constraint con
+                         join pg_class cls on cls.oid = con.conrelid
+                         where con.connamespace = current_schema()::regnamespace and con.contype in ('p', 'u', 'f')
+                    loop
+                        execute format('alter table %I rename constraint %I to %I', c.relname, c.conname,
+                                       case c.contype
+                                           when 'p' then c.relname || '_pkey'
+                                           when 'u' then 'uk' || left(md5(c.conname), 25)
+                                           else 'fk' || left(md5(c.conname), 25)
+                                           end);
+                    end loop;
+            end;
+            $$
+            """;
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testSchemaIsCreatedByMigrations() {
+        // Then: Все миграции применены; контекст поднялся, значит ddl-auto=validate принял схему
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(Arrays.stream(flyway.info().applied()).map(MigrationInfo::getVersion).map(Object::toString))
+                .contains("1", "2", "3", "4", "5", "6", "7", "8", "9");
+
+        // Then: Sequence-ы выдают id пачками по 50, как ожидает pooled-оптимизатор
+        List<Long> increments = jdbcTemplate.queryForList(
+                "select increment_by from pg_sequences where schemaname = current_schema()", Long.class);
+        assertThat(increments).isNotEmpty().containsOnly(50L);
+    }
+
+    @Test
+    void testHotQueriesUseIndexScans() {
+        // Записи и результаты: keyset-страницы и поиск по пользователю
+        assertUsesIndex("select * from enrollment where course_id = 1 and id > 0 order by id limit 51",
+                "idx_enrollment_course_id_id");
+        assertUsesIndex("select * from enrollment where user_id = 1", "uk_enrollment_user_id_course_id");
+
+        // submission и quiz_submission партиционированы: в плане индексы партиций,
+        // их имена PostgreSQL строит как <партиция>_<колонки>_idx
+        assertUsesIndex("select * from submission where assignment_id = 1 and id > 0 order by id limit 51",
+                "_assignment_id_id_idx");
+        assertUsesIndex("select * from submission where student_id = 1", "_student_id_assignment_id_idx");
+        assertUsesIndex("select * from submission_key where student_id = 1 and assignment_id = 1", "pk_submission_key");
+        assertUsesIndex("select * from quiz_submission where quiz_id = 1 and id > 0 order by id limit 51",
+                "_quiz_id_id_idx");
+        assertUsesIndex("select * from quiz_submission where student_id = 1", "_student_id_taken_at_idx");
+
+        // Структура курса и квиза
+        assertUsesIndex("select * from module where course_id = 1 order by order_index", "idx_module_course_id_order_index");
+        assertUsesIndex("select * from lesson where module_id = 1", "idx_lesson_module_id");
+        assertUsesIndex("select * from assignment where lesson_id = 1", "idx_assignment_lesson_id");
+        assertUsesIndex("select * from question where quiz_id = 1", "idx_question_quiz_id");
+        assertUsesIndex("select * from answer_option where question_id = 1", "idx_answer_option_question_id");
+        assertUsesIndex("select * from quiz where module_id = 1", "uk_quiz_module_id");
+
+        // Выборки курсов по справочникам
+        assertUsesIndex("select * from course where category_id = 1", "idx_course_category_id");
+        assertUsesIndex("select * from course where teacher_id = 1", "idx_course_teacher_id");
+        assertUsesIndex("select * from course_tag where tag_id = 1", "idx_course_tag_tag_id");
+
+        // Полнотекстовый поиск по каталогу
+        assertUsesIndex("select id from course where search_vector @@ websearch_to_tsquery('russian', 'java')",
+                "idx_course_search_vector");
+    }
+
+    @Test
+    void testHibernateSchemaIsMigratedFromBaseline() {
+        // Given: Отдельная база со схемой версии 1, как ее создает Hibernate (ddl-auto) -
+        // без истории Flyway и с именами ограничений Hibernate вместо имен из V1
+        jdbcTemplate.execute("create database hibernate_baseline");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:postgresql://" + POSTGRES.getHost() + ":" + POSTGRES.getMappedPort(5432) + "/hibernate_baseline",
+                POSTGRES.getUsername(),
+                POSTGRES.getPassword()
+        );
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").target("1").load().migrate();
+        JdbcTemplate baselineJdbcTemplate = new JdbcTemplate(dataSource);
+        baselineJdbcTemplate.execute("drop table flyway_schema_history");
+        baselineJdbcTemplate.execute(HIBERNATE_CONSTRAINT_NAMES_SQL);
+        assertThat(constraintNames(baselineJdbcTemplate))
+                .contains("quiz_submission_pkey", "submission_pkey")
+                .doesNotContain("pk_quiz_submission", "pk_submission", "uk_submission_student_id_assignment_id");
+
+        // When: Запускаем миграции с настройками dev и loadgen профилей
+        Flyway baselineFlyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        MigrateResult result = baselineFlyway.migrate();
+
+        // Then: Применены все миграции после baseline, партиционированные таблицы получили свои ключи
+        assertThat(result.success).isTrue();
+        assertThat(result.migrations).extracting(migration -> migration.version)
+                .containsExactly("2", "3", "4", "5", "6", "7", "8", "9");
+        assertThat(constraintNames(baselineJdbcTemplate))
+                .contains("pk_quiz_submission", "pk_submission", "pk_submission_key")
+                .doesNotContain("quiz_submission_pkey", "submission_pkey");
+
+        // Then: Повторный запуск проходит валидацию контрольных сумм, callback на готовой схеме ничего не меняет
+        MigrateResult rerun = baselineFlyway.migrate();
+        assertThat(rerun.success).isTrue();
+        assertThat(rerun.migrationsExecuted).isZero();
+    }
+
+    // На пустых таблицах планировщик всегда выбрал бы seq scan, поэтому отключаем его в транзакции:
+    // если подходящего индекса нет, в плане все равно останется Seq Scan
+    private void assertUsesIndex(String sql, String indexName) {
+        List<String> plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("set local enable_seqscan = off");
+            return jdbcTemplate.queryForList("explain " + sql, String.class);
+        });
+
+        assertThat(String.join("\n", plan))
+                .as("План запроса: %s", sql)
+                .doesNotContain("Seq Scan")
+                .contains(indexName);
+    }
+
+    private static List<String> constraintNames(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList(
+                "select conname from pg_constraint where connamespace = current_schema()::regnamespace", String.class);
+    }
+}
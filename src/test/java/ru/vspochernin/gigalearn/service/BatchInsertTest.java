@@ -0,0 +1,120 @@
+package ru.vspochernin.gigalearn.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.repository.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class BatchInsertTest {
+
+    // Должно совпадать с hibernate.jdbc.batch_size и allocationSize sequence-генераторов
+    private static final int BATCH_SIZE = 50;
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Статистика Hibernate нужна для подсчета SQL-запросов
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long moduleId;
+
+    @BeforeEach
+    void setUp() {
+        lessonRepository.deleteAll();
+        moduleRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        moduleId = moduleRepository.save(
+                ru.vspochernin.gigalearn.entity.Module.builder().title("Module").course(course).orderIndex(1).build()
+        ).getId();
+    }
+
+    // 35 строк - объем DevDataLoader, 3500 - в 100 раз больше
+    @ParameterizedTest
+    @ValueSource(ints = {35, 3500})
+    void testBulkInsertIsBatched(int lessonCount) {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When: Сохраняем уроки в одной транзакции
+        transactionTemplate.executeWithoutResult(status -> {
+            ru.vspochernin.gigalearn.entity.Module module = moduleRepository.getReferenceById(moduleId);
+            List<Lesson> lessons = new ArrayList<>();
+            for (int i = 0; i < lessonCount; i++) {
+                lessons.add(Lesson.builder().title("Lesson " + i).content("Content " + i).module(module).build());
+            }
+            lessonRepository.saveAll(lessons);
+        });
+
+        // Then: Все строки вставлены, а число обращений к БД - порядка одного INSERT-пакета
+        // и одного nextval на каждые BATCH_SIZE строк (с IDENTITY было бы lessonCount)
+        int batches = (lessonCount + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(lessonCount);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * batches + 1);
+        assertThat(lessonRepository.findByModuleId(moduleId)).hasSize(lessonCount);
+    }
+}
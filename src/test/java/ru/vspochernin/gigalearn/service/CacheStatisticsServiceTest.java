@@ -0,0 +1,153 @@
+package ru.vspochernin.gigalearn.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.dto.CacheRegionStatsDto;
+import ru.vspochernin.gigalearn.entity.Category;
+import ru.vspochernin.gigalearn.entity.Role;
+import ru.vspochernin.gigalearn.entity.User;
+import ru.vspochernin.gigalearn.repository.CategoryRepository;
+import ru.vspochernin.gigalearn.repository.CourseRepository;
+import ru.vspochernin.gigalearn.repository.ModuleRepository;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class CacheStatisticsServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+    }
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long categoryId;
+    private Long teacherId;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем данные через репозитории, чтобы кеш второго уровня тоже инвалидировался
+        moduleRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        categoryId = categoryRepository.save(Category.builder().name("Programming").build()).getId();
+        teacherId = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        ).getId();
+    }
+
+    @Test
+    void testFindByNameIsServedFromQueryCache() {
+        // Given: Первый вызов кладет результат в регион запроса
+        categoryRepository.findByName("Programming");
+
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // When: Повторный вызов
+        Category category = categoryRepository.findByName("Programming").orElseThrow();
+
+        // Then: Ни одного SQL-запроса, попадание в регион запроса видно в статистике
+        assertThat(category.getId()).isEqualTo(categoryId);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(regionStats("query.category-by-name").getHitCount()).isPositive();
+    }
+
+    @Test
+    void testCourseIsServedFromEntityCache() {
+        // Given: Курс прочитан один раз
+        Long courseId = courseService.createCourse("Cached Course", null, categoryId, teacherId, null, null).getId();
+        courseService.getCourseById(courseId);
+
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // When: Повторное чтение в новой транзакции
+        courseService.getCourseById(courseId);
+
+        // Then: Курс берется из региона "course" без обращения к БД
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(regionStats("course").getHitCount()).isPositive();
+    }
+
+    @Test
+    void testAddingModuleEvictsCachedModulesCollection() {
+        // Given: Коллекция modules курса прочитана и закеширована
+        Long courseId = courseService.createCourse("Course", null, categoryId, teacherId, null, null).getId();
+        courseService.addModule(courseId, "Module 1", null, 1);
+        assertThat(modulesCount(courseId)).isEqualTo(1);
+
+        // When: Модуль добавляется со стороны владельца связи (Module.course)
+        courseService.addModule(courseId, "Module 2", null, 2);
+
+        // Then: Закешированная коллекция не устарела
+        assertThat(modulesCount(courseId)).isEqualTo(2);
+    }
+
+    private int modulesCount(Long courseId) {
+        return transactionTemplate.execute(status ->
+                courseRepository.findById(courseId).orElseThrow().getModules().size());
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private CacheRegionStatsDto regionStats(String region) {
+        return cacheStatisticsService.getRegionStats().stream()
+                .filter(stats -> stats.getRegion().equals(region))
+                .findFirst()
+                .orElseThrow();
+    }
+}
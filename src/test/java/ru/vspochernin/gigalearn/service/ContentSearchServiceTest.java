@@ -0,0 +1,227 @@
+package ru.vspochernin.gigalearn.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.dto.ContentReindexResultDto;
+import ru.vspochernin.gigalearn.dto.ContentSearchHitDto;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.repository.*;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class ContentSearchServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Мелкие диапазоны, чтобы переиндексация разбилась на несколько параллельных задач
+        registry.add("gigalearn.content-index.reindex-chunk-size", () -> "2");
+    }
+
+    @Autowired
+    private ContentSearchService contentSearchService;
+
+    @Autowired
+    private ContentIndexService contentIndexService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ru.vspochernin.gigalearn.entity.Module module;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем данные перед каждым тестом; удаления через Hibernate снимают документы из индекса
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Программирование").build());
+        User teacher = userRepository.save(User.builder()
+                .name("Teacher")
+                .email("teacher@test.com")
+                .role(Role.TEACHER)
+                .build());
+        Course course = courseRepository.save(Course.builder()
+                .title("Основы Hibernate")
+                .description("Курс об ORM")
+                .category(category)
+                .teacher(teacher)
+                .build());
+        module = moduleRepository.save(ru.vspochernin.gigalearn.entity.Module.builder()
+                .title("Кеширование")
+                .course(course)
+                .orderIndex(1)
+                .build());
+        contentIndexService.flush();
+    }
+
+    @Test
+    void testLessonAndAssignmentContentIsSearchableWithSnippets() {
+        // Given
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Кеш второго уровня")
+                .content("Регионы кеша настраиваются в ehcache.xml. Стратегия READ_WRITE защищает от грязного чтения.")
+                .module(module)
+                .build());
+        Assignment assignment = assignmentRepository.save(Assignment.builder()
+                .title("Настроить регионы")
+                .description("Опишите стратегии конкурентного доступа к кешу")
+                .lesson(lesson)
+                .build());
+        contentIndexService.flush();
+
+        // When: Словоформа из текста урока и описания задания
+        List<ContentSearchHitDto> hits = contentSearchService.search("стратегия", 10);
+
+        // Then: Найдены оба документа, найденные слова подсвечены
+        assertThat(hits)
+                .extracting(ContentSearchHitDto::getType, ContentSearchHitDto::getId,
+                        ContentSearchHitDto::getCourseId)
+                .containsExactlyInAnyOrder(
+                        tuple("LESSON", lesson.getId(), module.getCourse().getId()),
+                        tuple("ASSIGNMENT", assignment.getId(), module.getCourse().getId()));
+        assertThat(hits).allSatisfy(hit -> assertThat(hit.getSnippet()).containsPattern("<b>[Сс]тратеги[яи]</b>"));
+    }
+
+    @Test
+    void testIndexFollowsUpdatesAndDeletes() {
+        // Given
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Транзакции")
+                .content("Уровни изоляции и блокировки")
+                .module(module)
+                .build());
+        contentIndexService.flush();
+        assertThat(contentSearchService.search("изоляции", 10)).hasSize(1);
+
+        // When: Меняем текст урока
+        lesson.setContent("Оптимистичные блокировки через version");
+        lessonRepository.save(lesson);
+        contentIndexService.flush();
+
+        // Then: Старый текст больше не находится, новый - находится
+        assertThat(contentSearchService.search("изоляции", 10)).isEmpty();
+        assertThat(contentSearchService.search("оптимистичные", 10))
+                .extracting(ContentSearchHitDto::getId)
+                .containsExactly(lesson.getId());
+
+        // When: Удаляем урок
+        lessonRepository.deleteById(lesson.getId());
+        contentIndexService.flush();
+
+        // Then
+        assertThat(contentSearchService.search("оптимистичные", 10)).isEmpty();
+    }
+
+    @Test
+    void testTitleMatchRanksAboveBodyMatch() {
+        // Given: Слово в названии одного урока и в тексте другого
+        Lesson inTitle = lessonRepository.save(Lesson.builder()
+                .title("Индексы")
+                .content("Как устроено B-дерево")
+                .module(module)
+                .build());
+        Lesson inBody = lessonRepository.save(Lesson.builder()
+                .title("Производительность")
+                .content("Индексы ускоряют выборки")
+                .module(module)
+                .build());
+        contentIndexService.flush();
+
+        // When/Then
+        assertThat(contentSearchService.search("индексы", 10))
+                .extracting(ContentSearchHitDto::getId)
+                .containsExactly(inTitle.getId(), inBody.getId());
+    }
+
+    @Test
+    void testReindexPicksUpRowsWrittenBypassingHibernate() {
+        // Given: Уроки, вставленные SQL-ем в обход Hibernate, и документ удаленной тем же способом строки
+        Lesson removed = lessonRepository.save(Lesson.builder()
+                .title("Удаляемый урок")
+                .content("Партиционирование таблиц")
+                .module(module)
+                .build());
+        contentIndexService.flush();
+        jdbcTemplate.update("delete from lesson where id = ?", removed.getId());
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("""
+                            insert into lesson (id, title, content, module_id)
+                            values (nextval('lesson_seq'), ?, ?, ?)
+                            """,
+                    "Загруженный урок " + i, "Массовая загрузка через COPY", module.getId());
+        }
+        assertThat(contentSearchService.search("загрузка", 10)).isEmpty();
+
+        // When
+        ContentReindexResultDto result = contentIndexService.reindexAll();
+
+        // Then: Курс, модуль и 5 уроков; документ удаленной строки снят
+        assertThat(result.getDocuments()).isEqualTo(7);
+        assertThat(contentSearchService.search("загрузка", 10)).hasSize(5);
+        assertThat(contentSearchService.search("партиционирование", 10)).isEmpty();
+        assertThat(contentSearchService.search("hibernate", 10))
+                .extracting(ContentSearchHitDto::getType)
+                .containsExactly("COURSE");
+    }
+
+    @Test
+    void testSearchRejectsInvalidInput() {
+        assertThatThrownBy(() -> contentSearchService.search(" ", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Search query is required");
+        assertThatThrownBy(() -> contentSearchService.search("\"незакрытая фраза", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid search query");
+        assertThatThrownBy(() -> contentSearchService.search("кеш", 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Limit must be between");
+    }
+}
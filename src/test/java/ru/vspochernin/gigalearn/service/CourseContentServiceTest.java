@@ -1,6 +1,9 @@
 package ru.vspochernin.gigalearn.service;
 
+import jakarta.persistence.EntityManagerFactory;
 import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +17,8 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.vspochernin.gigalearn.entity.*;
 import ru.vspochernin.gigalearn.repository.*;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -36,6 +41,9 @@ class CourseContentServiceTest {
         registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
         registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
         registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Статистика Hibernate для подсчета SQL-запросов
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
     }
 
     @Autowired
@@ -47,6 +55,15 @@ class CourseContentServiceTest {
     @Autowired
     private LessonService lessonService;
 
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private CourseRepository courseRepository;
 
@@ -139,6 +156,49 @@ class CourseContentServiceTest {
         assertThat(secondModule.getLessons()).hasSize(1);
     }
 
+    @Test
+    void testCourseTreeIsLoadedWithBoundedQueryCount() {
+        // Given: Курс из 3 модулей (добавлены не по порядку), по 2 урока с заданием, квиз во втором модуле
+        Long courseId = courseService.createCourse(
+                "Tree Course", "Description", categoryId, teacherId, "4 weeks", null
+        ).getId();
+
+        Long thirdModuleId = courseService.addModule(courseId, "Module 3", null, 3);
+        Long firstModuleId = courseService.addModule(courseId, "Module 1", null, 1);
+        Long secondModuleId = courseService.addModule(courseId, "Module 2", null, 2);
+
+        for (Long moduleId : List.of(firstModuleId, secondModuleId, thirdModuleId)) {
+            for (int i = 1; i <= 2; i++) {
+                Long lessonId = moduleService.addLesson(moduleId, "Lesson " + i, "Content", null);
+                assignmentService.createAssignment(lessonId, "Assignment " + i, "Description", 100);
+            }
+        }
+        quizService.createQuiz(secondModuleId, "Quiz", 600);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        Course course = courseService.getCourseWithContent(courseId);
+
+        // Then: Фиксированное число запросов - по одному на уровень дерева, без N+1
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+
+        // Дерево доступно вне транзакции (open-in-view выключен) и упорядочено по orderIndex
+        assertThat(course.getModules()).extracting(ru.vspochernin.gigalearn.entity.Module::getTitle)
+                .containsExactly("Module 1", "Module 2", "Module 3");
+        assertThat(course.getModules()).allSatisfy(module -> {
+            assertThat(module.getLessons()).hasSize(2);
+            assertThat(module.getLessons()).allSatisfy(lesson -> assertThat(lesson.getAssignments()).hasSize(1));
+        });
+        assertThat(course.getModules().get(0).getQuiz()).isNull();
+        assertThat(course.getModules().get(1).getQuiz().getTitle()).isEqualTo("Quiz");
+        assertThat(course.getCategory().getName()).isEqualTo("Test Category");
+        assertThat(course.getTeacher().getName()).isEqualTo("Test Teacher");
+        assertThat(course.getTags()).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
     @Test
     void testOrphanRemovalAndCascadeDelete() {
         // Given: Создаем курс с модулями, уроками и заданием
@@ -0,0 +1,111 @@
+package ru.vspochernin.gigalearn.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.entity.Category;
+import ru.vspochernin.gigalearn.entity.Course;
+import ru.vspochernin.gigalearn.entity.Role;
+import ru.vspochernin.gigalearn.entity.User;
+import ru.vspochernin.gigalearn.repository.CategoryRepository;
+import ru.vspochernin.gigalearn.repository.CourseRepository;
+import ru.vspochernin.gigalearn.repository.CourseReviewRepository;
+import ru.vspochernin.gigalearn.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class CourseReviewServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+    }
+
+    @Autowired
+    private CourseReviewService courseReviewService;
+
+    @Autowired
+    private CourseReviewRepository courseReviewRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long courseId;
+    private Long studentId;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем данные через репозитории, чтобы кеш второго уровня тоже инвалидировался
+        courseReviewRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        studentId = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        ).getId();
+        courseId = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        ).getId();
+    }
+
+    @Test
+    void testReviewDoesNotEvictCachedCourse() {
+        // Given: Курс загружен в кеш второго уровня
+        transactionTemplate.executeWithoutResult(status -> courseRepository.findById(courseId).orElseThrow());
+        assertThat(entityManagerFactory.getCache().contains(Course.class, courseId)).isTrue();
+
+        // When
+        long reviewId = courseReviewService.addReview(courseId, studentId, 4, "Good");
+
+        // Then: Агрегат обновлен, а upsert course_rating не очистил регион курса
+        assertThat(courseReviewService.getRating(courseId).getReviewCount()).isEqualTo(1);
+        assertThat(entityManagerFactory.getCache().contains(Course.class, courseId)).isTrue();
+
+        // When
+        courseReviewService.deleteReview(courseId, reviewId);
+
+        // Then
+        assertThat(courseReviewService.getRating(courseId).getReviewCount()).isZero();
+        assertThat(entityManagerFactory.getCache().contains(Course.class, courseId)).isTrue();
+    }
+}
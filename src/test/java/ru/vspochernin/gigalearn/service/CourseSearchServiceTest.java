@@ -0,0 +1,217 @@
+package ru.vspochernin.gigalearn.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.dto.CourseSearchResponseDto;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.repository.*;
+import ru.vspochernin.gigalearn.repository.projection.CourseSearchHit;
+import ru.vspochernin.gigalearn.repository.projection.FacetCount;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class CourseSearchServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+    }
+
+    @Autowired
+    private CourseSearchService courseSearchService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User teacher;
+    private Category programming;
+    private Category design;
+    private Tag java;
+    private Tag orm;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем данные перед каждым тестом
+        courseRepository.deleteAll();
+        tagRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        teacher = userRepository.save(User.builder()
+                .name("Teacher")
+                .email("teacher@test.com")
+                .role(Role.TEACHER)
+                .build());
+        programming = categoryRepository.save(Category.builder().name("Программирование").build());
+        design = categoryRepository.save(Category.builder().name("Дизайн").build());
+        java = tagRepository.save(Tag.builder().name("Java").build());
+        orm = tagRepository.save(Tag.builder().name("ORM").build());
+    }
+
+    @Test
+    void testSearchMatchesTitleDescriptionCategoryAndTags() {
+        // Given
+        Course hibernate = createCourse("Основы Hibernate", "Отображение объектов в таблицы", programming, java, orm);
+        Course spring = createCourse("Spring Boot", "Веб-приложения на Java", programming, java);
+        Course figma = createCourse("Figma для начинающих", "Макеты интерфейсов", design);
+
+        // When/Then: Слово из названия
+        assertThat(ids(courseSearchService.search("hibernate", null, null, null, 20)))
+                .containsExactly(hibernate.getId());
+
+        // When/Then: Словоформа из описания (стемминг russian)
+        assertThat(ids(courseSearchService.search("таблица", null, null, null, 20)))
+                .containsExactly(hibernate.getId());
+
+        // When/Then: Название категории
+        assertThat(ids(courseSearchService.search("дизайн", null, null, null, 20)))
+                .containsExactly(figma.getId());
+
+        // When/Then: Тег и описание; совпадение в описании весит больше, чем в тегах
+        CourseSearchResponseDto javaResult = courseSearchService.search("java", null, null, null, 20);
+        assertThat(ids(javaResult)).containsExactly(spring.getId(), hibernate.getId());
+        assertThat(javaResult.getItems().get(0).categoryName()).isEqualTo("Программирование");
+        assertThat(javaResult.getItems().get(0).rank()).isGreaterThan(javaResult.getItems().get(1).rank());
+    }
+
+    @Test
+    void testSearchReturnsFacetsOnFirstPage() {
+        // Given
+        createCourse("Java для начинающих", null, programming, java);
+        createCourse("Java и базы данных", null, programming, java, orm);
+        createCourse("Java в графике", null, design);
+
+        // When
+        CourseSearchResponseDto result = courseSearchService.search("java", null, null, null, 1);
+
+        // Then: Фасеты посчитаны по всей выдаче, а не по странице
+        assertThat(result.getItems()).hasSize(1);
+        assertThat(result.getCategoryFacets())
+                .extracting(FacetCount::name, FacetCount::count)
+                .containsExactly(tuple("Программирование", 2L), tuple("Дизайн", 1L));
+        assertThat(result.getTagFacets())
+                .extracting(FacetCount::name, FacetCount::count)
+                .containsExactly(tuple("Java", 2L), tuple("ORM", 1L));
+
+        // When: Фильтр по тегу сужает и выдачу, и фасеты
+        CourseSearchResponseDto filtered = courseSearchService.search("java", null, orm.getId(), null, 20);
+
+        // Then
+        assertThat(filtered.getItems()).extracting(CourseSearchHit::title).containsExactly("Java и базы данных");
+        assertThat(filtered.getCategoryFacets()).extracting(FacetCount::count).containsExactly(1L);
+
+        // When/Then: Фильтр по категории
+        assertThat(courseSearchService.search("java", design.getId(), null, null, 20).getItems())
+                .extracting(CourseSearchHit::title)
+                .containsExactly("Java в графике");
+    }
+
+    @Test
+    void testSearchPagesWithRankTokens() {
+        // Given: 5 курсов с одинаковым рангом и 2 с более высоким (слово и в названии, и в описании)
+        List<Long> expected = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            expected.add(createCourse("Kotlin " + i, "Kotlin для Android", programming).getId());
+        }
+        for (int i = 1; i <= 5; i++) {
+            expected.add(createCourse("Kotlin " + i, null, programming).getId());
+        }
+
+        // When: Листаем по 3
+        List<Long> found = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            CourseSearchResponseDto page = courseSearchService.search("kotlin", null, null, token, 3);
+            found.addAll(ids(page));
+            if (token != null) {
+                assertThat(page.getCategoryFacets()).isNull();
+            }
+            token = page.getNextPageToken();
+            pages++;
+        } while (token != null);
+
+        // Then: Порядок - ранг по убыванию, затем id; без пропусков и повторов
+        assertThat(pages).isEqualTo(3);
+        assertThat(found).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void testRenamedTagIsSearchable() {
+        // Given
+        Course course = createCourse("Основы Hibernate", null, programming, orm);
+
+        // When: Переименовываем тег
+        orm.setName("Persistence");
+        tagRepository.save(orm);
+
+        // Then: Триггер обновил поисковый вектор курса
+        assertThat(ids(courseSearchService.search("persistence", null, null, null, 20)))
+                .containsExactly(course.getId());
+        assertThat(courseSearchService.search("orm", null, null, null, 20).getItems()).isEmpty();
+    }
+
+    @Test
+    void testSearchRejectsBlankQueryAndBadToken() {
+        assertThatThrownBy(() -> courseSearchService.search("  ", null, null, null, 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Search query is required");
+        assertThatThrownBy(() -> courseSearchService.search("java", null, null, "bm90LWEtdG9rZW4", 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid page token");
+    }
+
+    // === Helper methods ===
+
+    private Course createCourse(String title, String description, Category category, Tag... tags) {
+        return courseRepository.save(Course.builder()
+                .title(title)
+                .description(description)
+                .category(category)
+                .teacher(teacher)
+                .tags(new HashSet<>(Set.of(tags)))
+                .build());
+    }
+
+    private static List<Long> ids(CourseSearchResponseDto result) {
+        return result.getItems().stream().map(CourseSearchHit::id).toList();
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.dto.BulkEnrollmentResultDto;
 import ru.vspochernin.gigalearn.entity.Category;
 import ru.vspochernin.gigalearn.entity.Course;
 import ru.vspochernin.gigalearn.entity.Role;
@@ -19,8 +20,17 @@ import ru.vspochernin.gigalearn.repository.CategoryRepository;
 import ru.vspochernin.gigalearn.repository.CourseRepository;
 import ru.vspochernin.gigalearn.repository.EnrollmentRepository;
 import ru.vspochernin.gigalearn.repository.UserRepository;
+import ru.vspochernin.gigalearn.repository.projection.CourseSummary;
+import ru.vspochernin.gigalearn.repository.projection.StudentSummary;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -101,13 +111,13 @@ class EnrollmentServiceTest {
         assertThat(enrollmentId).isPositive();
 
         // Проверяем списки
-        List<Course> studentCourses = enrollmentService.getCoursesForStudent(student.getId());
+        List<CourseSummary> studentCourses = enrollmentService.getCoursesForStudent(student.getId());
         assertThat(studentCourses).hasSize(1);
-        assertThat(studentCourses.get(0).getId()).isEqualTo(course.getId());
+        assertThat(studentCourses.get(0).id()).isEqualTo(course.getId());
 
-        List<User> courseStudents = enrollmentService.getStudentsForCourse(course.getId());
+        List<StudentSummary> courseStudents = enrollmentService.getStudentsForCourse(course.getId());
         assertThat(courseStudents).hasSize(1);
-        assertThat(courseStudents.get(0).getId()).isEqualTo(student.getId());
+        assertThat(courseStudents.get(0).id()).isEqualTo(student.getId());
     }
 
     @Test
@@ -175,7 +185,7 @@ class EnrollmentServiceTest {
         assertThat(result).isTrue();
 
         // Проверяем, что запись удалена
-        List<Course> studentCourses = enrollmentService.getCoursesForStudent(student.getId());
+        List<CourseSummary> studentCourses = enrollmentService.getCoursesForStudent(student.getId());
         assertThat(studentCourses).isEmpty();
 
         // When: Повторная отписка
@@ -218,7 +228,7 @@ class EnrollmentServiceTest {
         // Then: Запись должна быть успешной
         assertThat(newEnrollmentId).isPositive();
 
-        List<Course> studentCourses = enrollmentService.getCoursesForStudent(student.getId());
+        List<CourseSummary> studentCourses = enrollmentService.getCoursesForStudent(student.getId());
         assertThat(studentCourses).hasSize(1);
     }
 
@@ -314,29 +324,140 @@ class EnrollmentServiceTest {
         enrollmentService.enrollStudent(course2.getId(), student3.getId());
 
         // Then: Проверяем списки курсов для студентов
-        List<Course> student1Courses = enrollmentService.getCoursesForStudent(student1.getId());
+        List<CourseSummary> student1Courses = enrollmentService.getCoursesForStudent(student1.getId());
         assertThat(student1Courses).hasSize(2);
-        assertThat(student1Courses).extracting(Course::getTitle)
+        assertThat(student1Courses).extracting(CourseSummary::title)
                 .containsExactlyInAnyOrder("Course 1", "Course 2");
 
-        List<Course> student2Courses = enrollmentService.getCoursesForStudent(student2.getId());
+        List<CourseSummary> student2Courses = enrollmentService.getCoursesForStudent(student2.getId());
         assertThat(student2Courses).hasSize(1);
-        assertThat(student2Courses.get(0).getTitle()).isEqualTo("Course 1");
+        assertThat(student2Courses.get(0).title()).isEqualTo("Course 1");
 
-        List<Course> student3Courses = enrollmentService.getCoursesForStudent(student3.getId());
+        List<CourseSummary> student3Courses = enrollmentService.getCoursesForStudent(student3.getId());
         assertThat(student3Courses).hasSize(1);
-        assertThat(student3Courses.get(0).getTitle()).isEqualTo("Course 2");
+        assertThat(student3Courses.get(0).title()).isEqualTo("Course 2");
 
         // Then: Проверяем списки студентов для курсов
-        List<User> course1Students = enrollmentService.getStudentsForCourse(course1.getId());
+        List<StudentSummary> course1Students = enrollmentService.getStudentsForCourse(course1.getId());
         assertThat(course1Students).hasSize(2);
-        assertThat(course1Students).extracting(User::getName)
+        assertThat(course1Students).extracting(StudentSummary::name)
                 .containsExactlyInAnyOrder("Student 1", "Student 2");
 
-        List<User> course2Students = enrollmentService.getStudentsForCourse(course2.getId());
+        List<StudentSummary> course2Students = enrollmentService.getStudentsForCourse(course2.getId());
         assertThat(course2Students).hasSize(2);
-        assertThat(course2Students).extracting(User::getName)
+        assertThat(course2Students).extracting(StudentSummary::name)
                 .containsExactlyInAnyOrder("Student 1", "Student 3");
     }
-}
 
+    @Test
+    void testBulkEnrollReportsInsertedAndAlreadyEnrolled() {
+        // Given: Курс и 3 студента, один уже записан
+        Category category = categoryRepository.save(Category.builder().name("Test Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        User student1 = userRepository.save(
+                User.builder().name("Student 1").email("student1@test.com").role(Role.STUDENT).build()
+        );
+        User student2 = userRepository.save(
+                User.builder().name("Student 2").email("student2@test.com").role(Role.STUDENT).build()
+        );
+        User student3 = userRepository.save(
+                User.builder().name("Student 3").email("student3@test.com").role(Role.STUDENT).build()
+        );
+        enrollmentService.enrollStudent(course.getId(), student1.getId());
+
+        // When: Массовая запись (с повтором id в запросе)
+        BulkEnrollmentResultDto result = enrollmentService.enrollStudents(
+                course.getId(),
+                List.of(student1.getId(), student2.getId(), student3.getId(), student2.getId())
+        );
+
+        // Then
+        assertThat(result.getRequested()).isEqualTo(3);
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getAlreadyEnrolled()).isEqualTo(1);
+        assertThat(enrollmentService.getStudentsForCourse(course.getId()))
+                .extracting(StudentSummary::name)
+                .containsExactlyInAnyOrder("Student 1", "Student 2", "Student 3");
+
+        // Then: Идентификаторы массовой вставки не конфликтуют с обычной записью
+        User student4 = userRepository.save(
+                User.builder().name("Student 4").email("student4@test.com").role(Role.STUDENT).build()
+        );
+        assertThat(enrollmentService.enrollStudent(course.getId(), student4.getId())).isPositive();
+    }
+
+    @Test
+    void testBulkEnrollWithUnknownUserThrowsException() {
+        // Given
+        Category category = categoryRepository.save(Category.builder().name("Test Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+
+        // When/Then: Ни одна запись не создается
+        assertThatThrownBy(() -> enrollmentService.enrollStudents(course.getId(), List.of(teacher.getId(), 99999L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Users not found: [99999]");
+        assertThat(enrollmentRepository.findByCourseId(course.getId())).isEmpty();
+    }
+
+    @Test
+    void testConcurrentEnrollmentCreatesSingleRow() throws Exception {
+        // Given
+        Category category = categoryRepository.save(Category.builder().name("Test Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        User student = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        );
+
+        // When: Несколько потоков одновременно записывают одного студента
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                Callable<Long> task = () -> {
+                    start.await();
+                    return enrollmentService.enrollStudent(course.getId(), student.getId());
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            int enrolled = 0;
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                try {
+                    future.get();
+                    enrolled++;
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+
+            // Then: Одна запись, остальные получили дубликат без стека вызовов
+            assertThat(enrolled).isEqualTo(1);
+            assertThat(failures).hasSize(threads - 1).allSatisfy(failure -> {
+                assertThat(failure).isInstanceOf(DuplicateEnrollmentException.class);
+                assertThat(failure.getStackTrace()).isEmpty();
+            });
+            assertThat(enrollmentRepository.findByCourseId(course.getId())).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ru.vspochernin.gigalearn.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.repository.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class PartitionMaintenanceServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+    }
+
+    @Autowired
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void testCreateFuturePartitionsIsIdempotent() {
+        // Given: День, для которого партиции вперед еще не созданы миграцией
+        LocalDate today = LocalDate.now(ZoneOffset.UTC).plusYears(2);
+        YearMonth month = YearMonth.from(today);
+
+        // When: Создаем партиции дважды
+        int created = partitionMaintenanceService.createFuturePartitions(today);
+        int createdAgain = partitionMaintenanceService.createFuturePartitions(today);
+
+        // Then: По 4 месяца (текущий + 3 вперед) на каждую из двух таблиц, повторный запуск ничего не создает
+        assertThat(created).isEqualTo(8);
+        assertThat(createdAgain).isZero();
+        assertThat(partitionMaintenanceService.findMonthlyPartitions("quiz_submission"))
+                .contains(partitionName("quiz_submission", month), partitionName("quiz_submission", month.plusMonths(3)));
+        assertThat(partitionMaintenanceService.findMonthlyPartitions("submission"))
+                .contains(partitionName("submission", month), partitionName("submission", month.plusMonths(3)));
+    }
+
+    @Test
+    void testExpiredPartitionIsMovedToArchive() {
+        // Given: Прохождения квиза 14 месяцев назад (за сроком хранения) и сегодня
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        YearMonth expiredMonth = YearMonth.from(today).minusMonths(14);
+        partitionMaintenanceService.createPartitions("quiz_submission", expiredMonth, expiredMonth);
+
+        Quiz quiz = createTestQuiz();
+        User student = createTestStudent();
+        QuizSubmission expired = quizSubmissionRepository.save(QuizSubmission.builder()
+                .quiz(quiz)
+                .student(student)
+                .score(1)
+                .takenAt(expiredMonth.atDay(10).atStartOfDay().atOffset(ZoneOffset.UTC))
+                .build());
+        QuizSubmission recent = quizSubmissionRepository.save(QuizSubmission.builder()
+                .quiz(quiz)
+                .student(student)
+                .score(2)
+                .takenAt(OffsetDateTime.now(ZoneOffset.UTC))
+                .build());
+        assertThat(quizSubmissionRepository.findByStudentId(student.getId())).hasSize(2);
+
+        // When: Запускаем архивацию
+        List<String> archived = partitionMaintenanceService.archiveExpiredPartitions(today);
+
+        // Then: Старая партиция перенесена в схему archive вместе со строкой, живая таблица видит только свежую
+        String expiredPartition = partitionName("quiz_submission", expiredMonth);
+        assertThat(archived).containsExactly(expiredPartition);
+        assertThat(partitionMaintenanceService.findMonthlyPartitions("quiz_submission")).doesNotContain(expiredPartition);
+        assertThat(quizSubmissionRepository.findByStudentId(student.getId()))
+                .extracting(QuizSubmission::getId)
+                .containsExactly(recent.getId());
+        assertThat(jdbcTemplate.queryForList("select id from archive." + expiredPartition, Long.class))
+                .containsExactly(expired.getId());
+    }
+
+    @Test
+    void testQueryByRecentTakenAtSkipsOlderPartitions() {
+        // Given: Партиция двухмесячной давности рядом с текущей
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        partitionMaintenanceService.createPartitions("quiz_submission", current.minusMonths(2), current);
+
+        // When: План запроса по студенту за текущий месяц
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "explain select * from quiz_submission where student_id = 1 and taken_at >= '"
+                        + current.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC) + "'",
+                String.class));
+
+        // Then: Прошлые месяцы отсечены на этапе планирования
+        assertThat(plan)
+                .contains(partitionName("quiz_submission", current))
+                .doesNotContain(partitionName("quiz_submission", current.minusMonths(2)))
+                .doesNotContain(partitionName("quiz_submission", current.minusMonths(1)));
+    }
+
+    // === Helper methods ===
+
+    private static String partitionName(String table, YearMonth month) {
+        return String.format("%s_p%d%02d", table, month.getYear(), month.getMonthValue());
+    }
+
+    private Quiz createTestQuiz() {
+        Category category = categoryRepository.save(Category.builder().name("Partition Category").build());
+        User teacher = userRepository.save(User.builder()
+                .name("Teacher")
+                .email("teacher@partition.test")
+                .role(Role.TEACHER)
+                .build());
+        Course course = courseRepository.save(Course.builder()
+                .title("Partition Course")
+                .category(category)
+                .teacher(teacher)
+                .build());
+        ru.vspochernin.gigalearn.entity.Module module = moduleRepository.save(ru.vspochernin.gigalearn.entity.Module.builder()
+                .title("Module")
+                .course(course)
+                .orderIndex(1)
+                .build());
+        return quizRepository.save(Quiz.builder().title("Quiz").module(module).build());
+    }
+
+    private User createTestStudent() {
+        return userRepository.save(User.builder()
+                .name("Student")
+                .email("student@partition.test")
+                .role(Role.STUDENT)
+                .build());
+    }
+}
@@ -0,0 +1,338 @@
+package ru.vspochernin.gigalearn.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.exception.QuizAttemptClosedException;
+import ru.vspochernin.gigalearn.repository.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class QuizAttemptServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Короткий тик и без запаса на сеть, чтобы автосдача наступала за секунду
+        registry.add("gigalearn.quiz-attempts.tick", () -> "PT0.1S");
+        registry.add("gigalearn.quiz-attempts.grace-period", () -> "PT0S");
+        // Автосохранения сбрасываются в БД только явным flush
+        registry.add("gigalearn.quiz-attempts.autosave.flush-interval", () -> "PT1H");
+    }
+
+    @Autowired
+    private QuizAttemptService quizAttemptService;
+
+    @Autowired
+    private QuizAttemptAnswerBuffer answerBuffer;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerOptionRepository answerOptionRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private ru.vspochernin.gigalearn.entity.Module module;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем данные перед каждым тестом
+        quizAttemptRepository.deleteAll();
+        quizSubmissionRepository.deleteAll();
+        answerOptionRepository.deleteAll();
+        questionRepository.deleteAll();
+        quizRepository.deleteAll();
+        moduleRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        module = moduleRepository.save(
+                ru.vspochernin.gigalearn.entity.Module.builder().title("Module").course(course).orderIndex(1).build()
+        );
+        student = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        );
+    }
+
+    @Test
+    void testStartAndSubmitAttempt() {
+        // Given
+        Quiz quiz = createQuiz(600);
+        Question question = questionRepository.save(Question.builder().text("What is ORM?").quiz(quiz).build());
+        AnswerOption correct = answerOptionRepository.save(
+                AnswerOption.builder().text("Object-Relational Mapping").isCorrect(true).question(question).build()
+        );
+
+        // When
+        QuizAttempt attempt = quizAttemptService.startAttempt(quiz.getId(), student.getId());
+        QuizAttempt restarted = quizAttemptService.startAttempt(quiz.getId(), student.getId());
+
+        // Then: Дедлайн по timeLimit, повторный старт возвращает ту же попытку
+        assertThat(attempt.getDeadlineAt()).isEqualTo(attempt.getStartedAt().plusSeconds(600));
+        assertThat(restarted.getId()).isEqualTo(attempt.getId());
+        assertThat(restarted.getDeadlineAt()).isEqualTo(attempt.getDeadlineAt());
+
+        // When
+        QuizSubmission submission = quizAttemptService.submitAttempt(quiz.getId(), attempt.getId(),
+                Map.of(question.getId(), List.of(correct.getId())));
+
+        // Then: Попытка закрыта, повторная сдача отклоняется
+        assertThat(submission.getScore()).isEqualTo(1);
+        assertThat(quizAttemptRepository.findById(attempt.getId()).orElseThrow().getFinishedAt()).isNotNull();
+        assertThatThrownBy(() -> quizAttemptService.submitAttempt(quiz.getId(), attempt.getId(), Map.of()))
+                .isInstanceOf(QuizAttemptClosedException.class)
+                .hasMessageContaining("already submitted");
+
+        // Then: Попытка чужого квиза не найдена
+        Quiz other = createQuiz(600);
+        assertThatThrownBy(() -> quizAttemptService.submitAttempt(other.getId(), attempt.getId(), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Quiz attempt not found");
+    }
+
+    @Test
+    void testConcurrentStartsShareOpenAttempt() throws Exception {
+        // Given
+        Quiz quiz = createQuiz(600);
+
+        // When: Несколько потоков одновременно открывают попытку одного студента
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                Callable<Long> task = () -> {
+                    start.await();
+                    return quizAttemptService.startAttempt(quiz.getId(), student.getId()).getId();
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            List<Long> attemptIds = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                attemptIds.add(future.get());
+            }
+
+            // Then: Проигравшие гонку получили ту же открытую попытку, а не нарушение uk_quiz_attempt_open
+            assertThat(attemptIds).hasSize(threads).containsOnly(attemptIds.get(0));
+            assertThat(quizAttemptRepository.findAll()).singleElement()
+                    .satisfies(attempt -> assertThat(attempt.getId()).isEqualTo(attemptIds.get(0)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExpiredAttemptIsAutoSubmitted() throws Exception {
+        // Given: Квиз на одну секунду
+        Quiz quiz = createQuiz(1);
+        QuizAttempt attempt = quizAttemptService.startAttempt(quiz.getId(), student.getId());
+
+        // When: Дедлайн прошел, таймер сработал (в тесте или в фоновом планировщике)
+        Thread.sleep(1_100);
+        QuizAttempt expired = awaitFinished(attempt.getId());
+
+        // Then: Попытка закрыта на дедлайне, записан результат с нулевым баллом
+        assertThat(expired.getFinishedAt()).isEqualTo(expired.getDeadlineAt());
+        List<QuizSubmission> submissions = quizSubmissionRepository.findByQuizId(quiz.getId());
+        assertThat(submissions).hasSize(1);
+        assertThat(submissions.get(0).getScore()).isZero();
+        assertThat(submissions.get(0).getTakenAt().toInstant()).isEqualTo(expired.getDeadlineAt().toInstant());
+
+        // Then: Сдать после автосдачи уже нельзя, но можно начать новую попытку
+        assertThatThrownBy(() -> quizAttemptService.submitAttempt(quiz.getId(), attempt.getId(), Map.of()))
+                .isInstanceOf(QuizAttemptClosedException.class);
+        assertThat(quizAttemptService.startAttempt(quiz.getId(), student.getId()).getId())
+                .isNotEqualTo(attempt.getId());
+    }
+
+    @Test
+    void testAutosavedAnswersAreCoalescedAndGradedOnSubmit() {
+        // Given: Два вопроса
+        Quiz quiz = createQuiz(600);
+        Question first = questionRepository.save(Question.builder().text("What is ORM?").quiz(quiz).build());
+        AnswerOption firstCorrect = answerOptionRepository.save(
+                AnswerOption.builder().text("Object-Relational Mapping").isCorrect(true).question(first).build()
+        );
+        AnswerOption firstWrong = answerOptionRepository.save(
+                AnswerOption.builder().text("Object Request Model").isCorrect(false).question(first).build()
+        );
+        Question second = questionRepository.save(Question.builder().text("What is JPA?").quiz(quiz).build());
+        AnswerOption secondCorrect = answerOptionRepository.save(
+                AnswerOption.builder().text("Jakarta Persistence API").isCorrect(true).question(second).build()
+        );
+        QuizAttempt attempt = quizAttemptService.startAttempt(quiz.getId(), student.getId());
+
+        // When: Несколько автосохранений, ответ на первый вопрос меняется, второй снимается
+        quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of(first.getId(), List.of(firstWrong.getId())));
+        quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of(
+                first.getId(), List.of(firstCorrect.getId()),
+                second.getId(), List.of(secondCorrect.getId())));
+        quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of(second.getId(), List.of()));
+
+        // Then: До сброса в БД ничего не записано
+        assertThat(quizAttemptRepository.findById(attempt.getId()).orElseThrow().getAnswers()).isNull();
+
+        // When
+        answerBuffer.flush();
+
+        // Then: Записан один итоговый снимок
+        assertThat(quizAttemptRepository.findById(attempt.getId()).orElseThrow().getAnswers())
+                .isEqualTo(Map.of(first.getId(), List.of(firstCorrect.getId()), second.getId(), List.of()));
+
+        // When: Последнее изменение еще в памяти, сдача без ответов в запросе
+        quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of(second.getId(), List.of(secondCorrect.getId())));
+        QuizSubmission submission = quizAttemptService.submitAttempt(quiz.getId(), attempt.getId(), Map.of());
+
+        // Then: Оценены сохраненные ответы вместе с несброшенными
+        assertThat(submission.getScore()).isEqualTo(2);
+        assertThat(quizAttemptRepository.findById(attempt.getId()).orElseThrow().getAnswers())
+                .isEqualTo(Map.of(first.getId(), List.of(firstCorrect.getId()), second.getId(), List.of(secondCorrect.getId())));
+
+        // Then: Автосохранение сданной попытки и ответ на чужой вопрос отклоняются
+        assertThatThrownBy(() -> quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of()))
+                .isInstanceOf(QuizAttemptClosedException.class);
+        assertThatThrownBy(() -> quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of(99999L, List.of())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not belong to quiz");
+    }
+
+    @Test
+    void testExpiredAttemptGradesAutosavedAnswers() throws Exception {
+        // Given: Квиз на одну секунду, ответ только автосохранен
+        Quiz quiz = createQuiz(1);
+        Question question = questionRepository.save(Question.builder().text("What is ORM?").quiz(quiz).build());
+        AnswerOption correct = answerOptionRepository.save(
+                AnswerOption.builder().text("Object-Relational Mapping").isCorrect(true).question(question).build()
+        );
+        QuizAttempt attempt = quizAttemptService.startAttempt(quiz.getId(), student.getId());
+        quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of(question.getId(), List.of(correct.getId())));
+
+        // When
+        Thread.sleep(1_100);
+        QuizAttempt expired = awaitFinished(attempt.getId());
+
+        // Then: Автосдача оценила сохраненный ответ
+        assertThat(expired.getAnswers()).isEqualTo(Map.of(question.getId(), List.of(correct.getId())));
+        assertThat(quizSubmissionRepository.findByQuizId(quiz.getId()))
+                .singleElement()
+                .satisfies(submission -> assertThat(submission.getScore()).isEqualTo(1));
+        assertThatThrownBy(() -> quizAttemptService.saveAnswers(quiz.getId(), attempt.getId(), Map.of()))
+                .isInstanceOf(QuizAttemptClosedException.class);
+    }
+
+    @Test
+    void testTimerWheelFiresOnlyDueTimers() {
+        // Given: 8 ячеек по 100 мс - таймеры через 0.25 с и через 1.05 с (следующий оборот) в одной ячейке
+        Instant start = Instant.ofEpochMilli(1_000_000);
+        AttemptTimerWheel wheel = new AttemptTimerWheel(Duration.ofMillis(100), 8, start);
+        wheel.schedule(1, start.plusMillis(250));
+        wheel.schedule(2, start.plusMillis(1_050));
+        wheel.schedule(3, start.plusMillis(250));
+        wheel.schedule(4, start.minusMillis(500));
+        wheel.cancel(3);
+
+        // When/Then: Дедлайн в прошлом срабатывает на ближайшем тике
+        assertThat(wheel.advance(start.plusMillis(100))).containsExactly(4L);
+        // Дедлайн округляется вверх: 250 мс - тик 300 мс
+        assertThat(wheel.advance(start.plusMillis(299))).isEmpty();
+        assertThat(wheel.advance(start.plusMillis(300))).containsExactly(1L);
+        assertThat(wheel.size()).isEqualTo(1);
+
+        // When/Then: Скачок больше оборота колеса не теряет таймер следующего оборота
+        wheel.schedule(5, start.plusMillis(5_000));
+        assertThat(wheel.advance(start.plusMillis(2_000))).containsExactly(2L);
+        assertThat(wheel.advance(start.plusMillis(60_000))).containsExactly(5L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    // === Helper methods ===
+
+    private QuizAttempt awaitFinished(long attemptId) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            quizAttemptService.expireDueAttempts();
+            QuizAttempt attempt = quizAttemptRepository.findById(attemptId).orElseThrow();
+            if (attempt.getFinishedAt() != null) {
+                return attempt;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Quiz attempt was not expired: " + attemptId);
+    }
+
+    private Quiz createQuiz(int timeLimitSeconds) {
+        // Модуль может иметь только один квиз
+        ru.vspochernin.gigalearn.entity.Module quizModule = moduleRepository.save(
+                ru.vspochernin.gigalearn.entity.Module.builder()
+                        .title("Module").course(module.getCourse()).orderIndex(1).build()
+        );
+        return quizRepository.save(Quiz.builder().title("Exam").timeLimit(timeLimitSeconds).module(quizModule).build());
+    }
+}
@@ -1,5 +1,7 @@
 package ru.vspochernin.gigalearn.service;
 
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,9 +14,18 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.vspochernin.gigalearn.entity.*;
 import ru.vspochernin.gigalearn.repository.*;
+import ru.vspochernin.gigalearn.support.SqlStatementCounter;
+import ru.vspochernin.gigalearn.support.SqlStatements;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -38,6 +49,10 @@ class QuizServiceTest {
         registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
         registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
         registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Подсчет SQL для бюджетов запросов
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                SqlStatementCounter.class::getName);
     }
 
     @Autowired
@@ -67,6 +82,9 @@ class QuizServiceTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
     @BeforeEach
     void setUp() {
         // Очищаем данные перед каждым тестом
@@ -227,6 +245,128 @@ class QuizServiceTest {
         assertThat(result.getTakenAt()).isNotNull();
     }
 
+    @Test
+    void testTakeQuizStatementCountDoesNotDependOnQuestionCount() throws Exception {
+        // Given: Квиз с двумя вопросами
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+
+        // When: Проходим квиз с двумя вопросами
+        long smallQuizStatements = SqlStatements.record(
+                () -> quizService.takeQuiz(student.getId(), structure.quizId, Map.of())).size();
+
+        // When: Добавляем еще 20 вопросов по 3 варианта и проходим квиз снова
+        for (int i = 0; i < 20; i++) {
+            long questionId = quizService.addQuestion(structure.quizId, "Question " + i);
+            quizService.addAnswerOption(questionId, "Correct", true);
+            quizService.addAnswerOption(questionId, "Wrong 1", false);
+            quizService.addAnswerOption(questionId, "Wrong 2", false);
+        }
+        List<QuizSubmission> results = new ArrayList<>();
+        long largeQuizStatements = SqlStatements.record(
+                () -> results.add(quizService.takeQuiz(student.getId(), structure.quizId, Map.of()))).size();
+
+        // Then: Количество запросов не зависит от числа вопросов
+        // (студент + квиз + ключ ответов + insert результата; nextval sequence не считается)
+        assertThat(results.get(0).getScore()).isEqualTo(0);
+        assertThat(largeQuizStatements).isEqualTo(smallQuizStatements);
+        assertThat(largeQuizStatements).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void testTakeQuizUsesCachedAnswerKey() throws Exception {
+        // Given: Квиз и студент, ключ ответов уже загружен первой попыткой
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+        quizService.takeQuiz(student.getId(), structure.quizId, Map.of());
+
+        // When: Повторная попытка
+        List<QuizSubmission> results = new ArrayList<>();
+        List<String> statements = SqlStatements.record(() -> results.add(quizService.takeQuiz(
+                student.getId(), structure.quizId, Map.of(
+                        structure.question1Id, List.of(structure.option1_1),
+                        structure.question2Id, List.of(structure.option2_3, structure.option2_1)
+                ))));
+
+        // Then: Ключ ответов не читается из БД (только студент и insert результата)
+        assertThat(results.get(0).getScore()).isEqualTo(2);
+        assertThat(statements).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void testAddAnswerOptionInvalidatesCachedAnswerKey() {
+        // Given: Квиз, ключ ответов которого уже закэширован
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+        Map<Long, List<Long>> answers = Map.of(
+                structure.question1Id, List.of(structure.option1_1),
+                structure.question2Id, List.of(structure.option2_1, structure.option2_3)
+        );
+        assertThat(quizService.takeQuiz(student.getId(), structure.quizId, answers).getScore()).isEqualTo(2);
+
+        // When: Добавляем еще один правильный вариант ко второму вопросу
+        long option2_4 = quizService.addAnswerOption(structure.question2Id, "Proxies are used", true);
+
+        // Then: Старый ответ на второй вопрос больше не полный
+        assertThat(quizService.takeQuiz(student.getId(), structure.quizId, answers).getScore()).isEqualTo(1);
+
+        // Then: Новый вариант принимается как принадлежащий вопросу
+        Map<Long, List<Long>> fullAnswers = Map.of(
+                structure.question1Id, List.of(structure.option1_1),
+                structure.question2Id, List.of(structure.option2_1, structure.option2_3, option2_4)
+        );
+        assertThat(quizService.takeQuiz(student.getId(), structure.quizId, fullAnswers).getScore()).isEqualTo(2);
+    }
+
+    @Test
+    void testAnswerKeyLoadedAcrossInvalidationIsNotCached() {
+        // Given: Загрузка ключа началась до инвалидации (другого) квиза
+        long version = answerKeyCache.currentVersion();
+        answerKeyCache.invalidate(-1L);
+
+        // When: Загрузка завершилась после инвалидации
+        answerKeyCache.put(-2L, CompiledAnswerKey.compile(version, List.of()));
+
+        // Then: Возможно устаревший ключ не кэшируется, а ключ текущей версии - кэшируется
+        assertThat(answerKeyCache.get(-2L)).isNull();
+        answerKeyCache.put(-2L, CompiledAnswerKey.compile(answerKeyCache.currentVersion(), List.of()));
+        assertThat(answerKeyCache.get(-2L)).isNotNull();
+        answerKeyCache.invalidate(-2L);
+    }
+
+    @Test
+    void testConcurrentTakeQuizOnVirtualThreadsDoesNotPin() throws Exception {
+        // Given: Квиз и студент; первый вызов на обычном потоке прогревает классы и кэши,
+        // чтобы в запись не попала однократная инициализация
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+        Map<Long, List<Long>> answers = Map.of(structure.question1Id, List.of(structure.option1_1));
+        quizService.takeQuiz(student.getId(), structure.quizId, answers);
+
+        List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            // Событие пишется, когда виртуальный поток паркуется, удерживая монитор (synchronized)
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedStacks.add(describe(event)));
+            recording.startAsync();
+
+            // When: 200 параллельных прохождений при пуле из 5 соединений - потоки ждут Hikari и сокет JDBC
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<QuizSubmission>> results = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    results.add(executor.submit(() -> quizService.takeQuiz(student.getId(), structure.quizId, answers)));
+                }
+                for (Future<QuizSubmission> result : results) {
+                    assertThat(result.get().getScore()).isEqualTo(1);
+                }
+            }
+            recording.stop();
+        }
+
+        // Then: Ни Hikari, ни драйвер, ни сервисный слой не блокируют поток-носитель
+        assertThat(pinnedStacks).isEmpty();
+    }
+
     // === Helper methods ===
 
     private Long createTestModule() {
@@ -262,6 +402,16 @@ class QuizServiceTest {
         return module.getId();
     }
 
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.toString();
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(15)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .collect(Collectors.joining(" <- "));
+    }
+
     private User createTestStudent(String name, String email) {
         return userRepository.save(
                 User.builder()
@@ -0,0 +1,282 @@
+package ru.vspochernin.gigalearn.service;
+
+import jakarta.persistence.EntityManager;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.entity.*;
+import ru.vspochernin.gigalearn.repository.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class QuizSubmissionWriteBehindTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+
+        // Настройки Hikari для тестов
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "5");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+        registry.add("spring.datasource.hikari.validation-timeout", () -> "3000");
+        registry.add("spring.datasource.hikari.leak-detection-threshold", () -> "60000");
+
+        // Фоновый поток сам не сбрасывает очередь: тесты вызывают flush явно
+        registry.add("gigalearn.quiz-submissions.write-behind.enabled", () -> "true");
+        registry.add("gigalearn.quiz-submissions.write-behind.batch-size", () -> "1000");
+        registry.add("gigalearn.quiz-submissions.write-behind.flush-interval", () -> "PT1H");
+        registry.add("gigalearn.quiz-submissions.write-behind.journal-path",
+                () -> journalDirectory.resolve("context").toString());
+    }
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizSubmissionWriteBehind submissionWriteBehind;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerOptionRepository answerOptionRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Quiz quiz;
+    private Question question;
+    private AnswerOption correctOption;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем данные перед каждым тестом
+        submissionWriteBehind.flush();
+        quizSubmissionRepository.deleteAll();
+        answerOptionRepository.deleteAll();
+        questionRepository.deleteAll();
+        quizRepository.deleteAll();
+        moduleRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        ru.vspochernin.gigalearn.entity.Module module = moduleRepository.save(
+                ru.vspochernin.gigalearn.entity.Module.builder().title("Module").course(course).orderIndex(1).build()
+        );
+        quiz = quizRepository.save(Quiz.builder().title("Exam").module(module).build());
+        question = questionRepository.save(Question.builder().text("What is ORM?").quiz(quiz).build());
+        correctOption = answerOptionRepository.save(
+                AnswerOption.builder().text("Object-Relational Mapping").isCorrect(true).question(question).build()
+        );
+        student = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        );
+    }
+
+    @Test
+    void testScoreIsReturnedBeforeRowIsWrittenByFlush() throws Exception {
+        // When
+        QuizSubmission submission = quizService.takeQuiz(student.getId(), quiz.getId(),
+                Map.of(question.getId(), List.of(correctOption.getId())));
+
+        // Then: Балл и id уже есть, строки в БД еще нет, запись в журнале
+        assertThat(submission.getId()).isNotNull();
+        assertThat(submission.getScore()).isEqualTo(1);
+        assertThat(quizSubmissionRepository.findById(submission.getId())).isEmpty();
+        assertThat(QuizSubmissionJournal.existingSegments(journalDirectory.resolve("context")))
+                .anySatisfy(segment -> assertThat(Files.size(segment)).isEqualTo(QuizSubmissionJournal.RECORD_SIZE));
+
+        // When
+        submissionWriteBehind.flush();
+
+        // Then: Строка записана, сегмент журнала с ней удален
+        QuizSubmission saved = quizSubmissionRepository.findById(submission.getId()).orElseThrow();
+        assertThat(saved.getScore()).isEqualTo(1);
+        assertThat(saved.getTakenAt().toInstant()).isEqualTo(submission.getTakenAt().toInstant());
+        assertThat(QuizSubmissionJournal.existingSegments(journalDirectory.resolve("context")))
+                .allSatisfy(segment -> assertThat(Files.size(segment)).isZero());
+    }
+
+    @Test
+    void testJournalIsReplayedOnStartup(@TempDir Path directory) throws Exception {
+        // Given: Журнал, оставшийся после падения: две записи и оборванный хвост
+        OffsetDateTime takenAt = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        QuizSubmissionJournal journal = new QuizSubmissionJournal(directory);
+        journal.append(new QuizSubmissionJournal.Entry(10_000_001L, quiz.getId(), student.getId(), 1, takenAt))
+                .sync();
+        journal.append(new QuizSubmissionJournal.Entry(10_000_002L, quiz.getId(), student.getId(), 0, takenAt))
+                .sync();
+        Path segment = journal.rotate();
+        journal.close();
+        Files.write(segment, new byte[QuizSubmissionJournal.RECORD_SIZE / 2], StandardOpenOption.APPEND);
+        byte[] segmentBytes = Files.readAllBytes(segment);
+
+        // When: Старт буфера над этим каталогом, затем повторный старт с тем же сегментом
+        QuizSubmissionWriteBehind restarted = newWriteBehind(10, directory);
+        restarted.start();
+        restarted.close();
+        Files.write(segment, segmentBytes);
+        QuizSubmissionWriteBehind restartedAgain = newWriteBehind(10, directory);
+        restartedAgain.start();
+        restartedAgain.close();
+
+        // Then: Обе записи вставлены по одному разу (повтор отсекает ON CONFLICT), журнал пуст
+        assertThat(quizSubmissionRepository.findByQuizId(quiz.getId()))
+                .extracting(QuizSubmission::getId, QuizSubmission::getScore)
+                .containsExactlyInAnyOrder(
+                        tuple(10_000_001L, 1),
+                        tuple(10_000_002L, 0));
+        assertThat(QuizSubmissionJournal.existingSegments(directory)).isEmpty();
+    }
+
+    @Test
+    void testFullQueueFallsBackToSynchronousWrite() throws Exception {
+        // Given: Буфер на одну запись без журнала
+        QuizSubmissionWriteBehind writeBehind = newWriteBehind(1, null);
+        writeBehind.start();
+
+        // When
+        QuizSubmission first = newSubmission();
+        QuizSubmission second = newSubmission();
+        boolean firstAccepted = transactionTemplate.execute(status -> writeBehind.offer(first));
+        boolean secondAccepted = transactionTemplate.execute(status -> writeBehind.offer(second));
+
+        // Then: Вторая запись не принята и id не получила - вызывающий сохранит ее сам
+        assertThat(firstAccepted).isTrue();
+        assertThat(secondAccepted).isFalse();
+        assertThat(second.getId()).isNull();
+
+        // Then: Остановка сбрасывает очередь
+        writeBehind.close();
+        assertThat(quizSubmissionRepository.findById(first.getId())).isPresent();
+    }
+
+    @Test
+    void testConcurrentTakeQuizWithJournalOnVirtualThreadsDoesNotPin() throws Exception {
+        // Given: Первый вызов на обычном потоке прогревает классы, кэши и открывает сегмент журнала
+        Map<Long, List<Long>> answers = Map.of(question.getId(), List.of(correctOption.getId()));
+        quizService.takeQuiz(student.getId(), quiz.getId(), answers);
+
+        List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedStacks.add(describe(event)));
+            recording.startAsync();
+
+            // When: 200 параллельных прохождений - потоки ждут блокировку очереди и fsync общего сегмента
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<QuizSubmission>> results = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    results.add(executor.submit(() -> quizService.takeQuiz(student.getId(), quiz.getId(), answers)));
+                }
+                for (Future<QuizSubmission> result : results) {
+                    assertThat(result.get().getId()).isNotNull();
+                }
+            }
+            recording.stop();
+        }
+
+        // Then: Ожидание fsync журнала не блокирует поток-носитель
+        assertThat(pinnedStacks).isEmpty();
+        submissionWriteBehind.flush();
+        assertThat(quizSubmissionRepository.findByQuizId(quiz.getId())).hasSize(201);
+    }
+
+    // === Helper methods ===
+
+    private QuizSubmissionWriteBehind newWriteBehind(int capacity, Path journal) {
+        return new QuizSubmissionWriteBehind(entityManager, jdbcTemplate, true, capacity, 1000,
+                Duration.ofHours(1), journal == null ? "" : journal.toString());
+    }
+
+    private QuizSubmission newSubmission() {
+        return QuizSubmission.builder()
+                .quiz(quiz)
+                .student(student)
+                .score(1)
+                .takenAt(OffsetDateTime.now())
+                .build();
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.toString();
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(15)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .collect(Collectors.joining(" <- "));
+    }
+}
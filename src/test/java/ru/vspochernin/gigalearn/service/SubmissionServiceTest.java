@@ -4,17 +4,27 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.vspochernin.gigalearn.dto.SubmissionResponseDto;
 import ru.vspochernin.gigalearn.entity.*;
 import ru.vspochernin.gigalearn.exception.DuplicateSubmissionException;
 import ru.vspochernin.gigalearn.repository.*;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -111,6 +121,70 @@ class SubmissionServiceTest {
                 .hasMessageContaining("already submitted");
     }
 
+    @Test
+    void testConcurrentSubmitCreatesSingleSubmission() throws Exception {
+        // Given
+        Long assignmentId = createTestAssignment();
+        User student = createTestStudent("Student", "student@test.com");
+
+        // When: Несколько потоков одновременно сдают одно задание
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                String content = "Solution " + i;
+                Callable<Long> task = () -> {
+                    start.await();
+                    return submissionService.submit(student.getId(), assignmentId, content);
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            List<Long> submitted = new ArrayList<>();
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                try {
+                    submitted.add(future.get());
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+
+            // Then: Одна сдача, остальные получили дубликат без стека вызовов
+            assertThat(submitted).hasSize(1);
+            assertThat(failures).hasSize(threads - 1)
+                    .allSatisfy(failure -> assertThat(failure).isInstanceOf(DuplicateSubmissionException.class));
+            assertThat(failures.get(0).getStackTrace()).isEmpty();
+            assertThat(submissionRepository.findByAssignmentId(assignmentId))
+                    .extracting(Submission::getId)
+                    .containsExactlyElementsOf(submitted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDuplicateInsertBypassingServiceIsStillRejected() {
+        // Given: Сдача через upsert-путь сервиса
+        Long assignmentId = createTestAssignment();
+        User student = createTestStudent("Student", "student@test.com");
+        submissionService.submit(student.getId(), assignmentId, "First submission");
+
+        // When/Then: Обычный INSERT Hibernate той же пары отклоняет триггер submission_key
+        Submission duplicate = Submission.builder()
+                .student(student)
+                .assignment(assignmentRepository.getReferenceById(assignmentId))
+                .content("Second submission")
+                .submittedAt(OffsetDateTime.now())
+                .build();
+        assertThatThrownBy(() -> submissionRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(submissionRepository.findByAssignmentId(assignmentId)).hasSize(1);
+    }
+
     @Test
     void testGradeSubmissionSuccessfully() {
         // Given: Создаем сдачу
@@ -152,22 +226,22 @@ class SubmissionServiceTest {
         long sub3 = submissionService.submit(student2.getId(), assignment1Id, "Solution 2-1");
 
         // When: Получаем списки
-        List<Submission> assignment1Submissions = submissionService.getByAssignment(assignment1Id);
-        List<Submission> assignment2Submissions = submissionService.getByAssignment(assignment2Id);
+        List<SubmissionResponseDto> assignment1Submissions = submissionService.getByAssignment(assignment1Id);
+        List<SubmissionResponseDto> assignment2Submissions = submissionService.getByAssignment(assignment2Id);
 
-        List<Submission> student1Submissions = submissionService.getByStudent(student1.getId());
-        List<Submission> student2Submissions = submissionService.getByStudent(student2.getId());
+        List<SubmissionResponseDto> student1Submissions = submissionService.getByStudent(student1.getId());
+        List<SubmissionResponseDto> student2Submissions = submissionService.getByStudent(student2.getId());
 
         // Then: Проверяем корректность списков
         assertThat(assignment1Submissions).hasSize(2);
-        assertThat(assignment1Submissions).extracting(Submission::getId)
+        assertThat(assignment1Submissions).extracting(SubmissionResponseDto::getId)
                 .containsExactlyInAnyOrder(sub1, sub3);
 
         assertThat(assignment2Submissions).hasSize(1);
         assertThat(assignment2Submissions.get(0).getId()).isEqualTo(sub2);
 
         assertThat(student1Submissions).hasSize(2);
-        assertThat(student1Submissions).extracting(Submission::getId)
+        assertThat(student1Submissions).extracting(SubmissionResponseDto::getId)
                 .containsExactlyInAnyOrder(sub1, sub2);
 
         assertThat(student2Submissions).hasSize(1);
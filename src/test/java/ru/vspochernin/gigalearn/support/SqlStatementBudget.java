@@ -0,0 +1,21 @@
+package ru.vspochernin.gigalearn.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Бюджет SQL-запросов на весь тестовый метод (без учета {@code @BeforeEach}/{@code @AfterEach}).
+ * Подходит для тестов, в которых подготовка данных вынесена в {@code @BeforeEach};
+ * иначе удобнее {@link SqlStatements#assertAtMost}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    int max();
+}
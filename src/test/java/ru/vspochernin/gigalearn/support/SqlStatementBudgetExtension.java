@@ -0,0 +1,38 @@
+package ru.vspochernin.gigalearn.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlStatements.checkInstalled();
+        SqlStatementCounter.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        List<String> statements = SqlStatementCounter.statements();
+        SqlStatementCounter.reset();
+
+        // Если тест уже упал, бюджет не проверяем, чтобы не скрыть исходную ошибку
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        int max = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), SqlStatementBudget.class)
+                .orElseThrow()
+                .max();
+        assertThat(statements)
+                .as("Превышен бюджет SQL-запросов теста %s: ожидалось не больше %d",
+                        context.getDisplayName(), max)
+                .hasSizeLessThanOrEqualTo(max);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.vspochernin.gigalearn.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link StatementInspector}, запоминающий каждый SQL, который Hibernate отправляет в JDBC.
+ * <p>
+ * Подключается в тесте через свойство
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ * Счетчик привязан к потоку: MockMvc выполняет запрос в потоке теста, поэтому
+ * посторонние потоки (пул, фоновые задачи) в подсчет не попадают.
+ * Запросы мимо Hibernate (JdbcTemplate, COPY) не учитываются.
+ * <p>
+ * Обращения к sequence тоже не считаются: pooled-оптимизатор выбирает id пачками по 50,
+ * и то, попадет ли {@code nextval} в конкретный блок, зависит от предыдущих тестов.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    private static volatile boolean installed;
+
+    public SqlStatementCounter() {
+        // Hibernate создает инспектор сам по имени класса при старте SessionFactory
+        installed = true;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (!sql.contains("nextval(")) {
+            STATEMENTS.get().add(sql);
+        }
+        return sql;
+    }
+
+    static boolean isInstalled() {
+        return installed;
+    }
+
+    static void reset() {
+        STATEMENTS.get().clear();
+    }
+
+    static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+}
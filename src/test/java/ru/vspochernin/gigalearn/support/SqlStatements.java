@@ -0,0 +1,54 @@
+package ru.vspochernin.gigalearn.support;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бюджеты SQL-запросов для интеграционных тестов.
+ * <p>
+ * Пример: {@code SqlStatements.assertAtMost(4, () -> mockMvc.perform(get("/api/courses/1")))}.
+ * Если изменение добавит N+1 (ленивую подгрузку в цикле), тест упадет со списком выполненных запросов.
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    @FunctionalInterface
+    public interface SqlBlock {
+        void run() throws Exception;
+    }
+
+    /**
+     * Выполняет блок и возвращает SQL, отправленные Hibernate в текущем потоке.
+     */
+    public static List<String> record(SqlBlock block) throws Exception {
+        checkInstalled();
+        SqlStatementCounter.reset();
+        try {
+            block.run();
+            return SqlStatementCounter.statements();
+        } finally {
+            SqlStatementCounter.reset();
+        }
+    }
+
+    /**
+     * Проверяет, что блок выполнил не больше {@code max} SQL-запросов.
+     */
+    public static List<String> assertAtMost(int max, SqlBlock block) throws Exception {
+        List<String> statements = record(block);
+        assertThat(statements)
+                .as("Превышен бюджет SQL-запросов: ожидалось не больше %d", max)
+                .hasSizeLessThanOrEqualTo(max);
+        return statements;
+    }
+
+    static void checkInstalled() {
+        assertThat(SqlStatementCounter.isInstalled())
+                .as("SqlStatementCounter не подключен: добавьте свойство "
+                        + "spring.jpa.properties.hibernate.session_factory.statement_inspector")
+                .isTrue();
+    }
+}